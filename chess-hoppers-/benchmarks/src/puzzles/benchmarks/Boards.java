@@ -0,0 +1,94 @@
+package puzzles.benchmarks;
+
+import puzzles.chess.model.ChessConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.strings.StringsConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * The boards the benchmarks run on, by name. Hoppers boards are the files in data/hoppers, so the
+ * benchmarks have to run from the project directory like the solver mains. The chess boards are kept
+ * here and written to a temporary file, since ChessConfig only reads files.
+ */
+public class Boards {
+    /**
+     * representative chess boards: a small mixed one, a mirror symmetric 6x6, a 7x7 and the 9x9 with the
+     * most configs
+     */
+    private static final Map<String, String> CHESS = Map.of(
+            "chess-4", """
+                    4 4
+                    B . P K
+                    N . . P
+                    . . P Q
+                    R . . P
+                    """,
+            "chess-6", """
+                    6 6
+                    R . . . . R
+                    . B . . B .
+                    . . P P . .
+                    . . P P . .
+                    . B . . B .
+                    R . . . . R
+                    """,
+            "chess-7", """
+                    7 7
+                    P . . K . . B
+                    . P . . . B .
+                    . . . . N . .
+                    K . . . . . K
+                    . . N . . . .
+                    . . . . . . .
+                    Q . . K . . R
+                    """,
+            "chess-9", """
+                    9 9
+                    . . . R . . . K .
+                    . N . . . . P . .
+                    . . . . . . N . .
+                    Q . . . K . . . K
+                    . . . . . . . . .
+                    . . P . . . . P .
+                    . . . . . . . . .
+                    B K . . P . . B .
+                    . . . . . . . P .
+                    """);
+
+    /**
+     * loads a board
+     * @param name hoppers-N for data/hoppers/hoppers-N.txt, chess-4, chess-6, chess-7 or chess-9, or
+     *             strings-START-FINISH
+     * @return the starting config
+     * @throws IOException if the board can't be read
+     */
+    public static Configuration load(String name) throws IOException {
+        if (name.startsWith("hoppers-")) {
+            Path file = Path.of("data", "hoppers", name + ".txt");
+            if (!Files.isReadable(file)) {
+                throw new IOException("run the benchmarks from the project directory, can't read " + file);
+            }
+            return new HoppersConfig(file.toString());
+        }
+        if (name.startsWith("strings-")) {
+            String[] fields = name.split("-");
+            return new StringsConfig(fields[1], fields[2]);
+        }
+        String board = CHESS.get(name);
+        if (board == null) {
+            throw new IllegalArgumentException("unknown board: " + name);
+        }
+        Path file = Files.createTempFile(name, ".txt");
+        try {
+            Files.writeString(file, board);
+            return new ChessConfig(file.toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package puzzles.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.Configuration;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per config work every solver repeats: generating neighbors, hashing them and comparing them
+ * against the visited set. equals is measured against an equal config that is a different object,
+ * which is the case the visited set hits on every duplicate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigBenchmark {
+    /** the board to measure, see Boards.load **/
+    @Param({"hoppers-5", "hoppers-9", "chess-4", "chess-9", "strings-MARCH-APRIL"})
+    public String board;
+
+    /** the starting config of the board **/
+    private Configuration config;
+    /** a second copy of the same config **/
+    private Configuration same;
+    /** the first neighbor of the config, which isn't equal to it **/
+    private Configuration neighbor;
+
+    /**
+     * loads the board twice
+     * @throws IOException if the board can't be read
+     */
+    @Setup
+    public void setup() throws IOException {
+        config = Boards.load(board);
+        same = Boards.load(board);
+        neighbor = config.getNeighbors().iterator().next();
+    }
+
+    /**
+     * @return the neighbors of the starting config
+     */
+    @Benchmark
+    public Collection<Configuration> getNeighbors() {
+        return config.getNeighbors();
+    }
+
+    /**
+     * @return the hash code of the starting config
+     */
+    @Benchmark
+    public int hashCodeOf() {
+        return config.hashCode();
+    }
+
+    /**
+     * @return the starting config compared with an equal copy
+     */
+    @Benchmark
+    public boolean equalsSame() {
+        return config.equals(same);
+    }
+
+    /**
+     * @return the starting config compared with one of its neighbors
+     */
+    @Benchmark
+    public boolean equalsNeighbor() {
+        return config.equals(neighbor);
+    }
+}
@@ -0,0 +1,103 @@
+package puzzles.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.BatchSolver;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.OffHeapSolver;
+import puzzles.common.solver.PackedConfiguration;
+import puzzles.common.solver.Solver;
+import puzzles.common.solver.SortingSolver;
+import puzzles.common.solver.TreeSolver;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full Solver.solve runs, one per data/hoppers file and per representative chess board. Each run
+ * starts from a new Solver so nothing is shared between invocations. The same boards through
+ * OffHeapSolver show what keeping the visited states off the heap costs, or saves in GC, through
+ * SortingSolver what finding duplicates with sorts instead of hash lookups does, through TreeSolver
+ * what keeping the paths in a SearchTree costs, and through BatchSolver.canonical what reducing the
+ * boards by their symmetries saves, chess-6, hoppers-6 and hoppers-9 being the boards where it does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+    /** direct memory the off heap solves may take, enough for every board here **/
+    private static final long OFF_HEAP_BYTES = 256L << 20;
+    /** the board to solve, see Boards.load **/
+    @Param({"hoppers-0", "hoppers-1", "hoppers-2", "hoppers-3", "hoppers-4", "hoppers-5", "hoppers-6",
+            "hoppers-7", "hoppers-8", "hoppers-9", "chess-4", "chess-6", "chess-7", "chess-9", "strings-CAT-DOG"})
+    public String board;
+
+    /** the starting config of the board **/
+    private Configuration config;
+
+    /**
+     * loads the board
+     * @throws IOException if the board can't be read
+     */
+    @Setup
+    public void setup() throws IOException {
+        config = Boards.load(board);
+    }
+
+    /**
+     * @return the path Solver finds
+     */
+    @Benchmark
+    public List<Configuration> solve() {
+        return new Solver(config).solve(config);
+    }
+
+    /**
+     * @return the path OffHeapSolver finds
+     */
+    @Benchmark
+    public List<Configuration> offHeapSolve() {
+        PackedConfiguration start = (PackedConfiguration) config;
+        return new OffHeapSolver(start, OFF_HEAP_BYTES).solve(start);
+    }
+
+    /**
+     * @return the path SortingSolver finds
+     */
+    @Benchmark
+    public List<Configuration> sortingSolve() {
+        PackedConfiguration start = (PackedConfiguration) config;
+        return new SortingSolver(start).solve(start);
+    }
+
+    /**
+     * @return the path TreeSolver finds
+     */
+    @Benchmark
+    public List<Configuration> treeSolve() {
+        PackedConfiguration start = (PackedConfiguration) config;
+        return new TreeSolver(start).solve(start);
+    }
+
+    /**
+     * @return the path breadth first search finds on the canonical forms of the board, in the board's
+     *         orientation
+     */
+    @Benchmark
+    public List<Configuration> canonicalSolve() {
+        return BatchSolver.canonical().solve((PackedConfiguration) config).getPath();
+    }
+}
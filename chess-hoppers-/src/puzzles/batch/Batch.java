@@ -0,0 +1,332 @@
+package puzzles.batch;
+
+import puzzles.chess.model.ChessConfig;
+import puzzles.chess.model.ChessHeuristic;
+import puzzles.chess.model.MutableChessBoard;
+import puzzles.common.solver.BacktrackingSolver;
+import puzzles.common.solver.BatchSolver;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.ExternalSolver;
+import puzzles.common.solver.Heuristic;
+import puzzles.common.solver.HeuristicSolver;
+import puzzles.common.solver.MutableBoard;
+import puzzles.common.solver.OffHeapSolver;
+import puzzles.common.solver.PackedConfiguration;
+import puzzles.common.solver.SortingSolver;
+import puzzles.common.solver.TreeSolver;
+import puzzles.common.solver.Zobrist;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersHeuristic;
+import puzzles.hoppers.model.MutableHoppersBoard;
+import puzzles.strings.StringsConfig;
+import puzzles.strings.StringsHeuristic;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Solves a whole directory or manifest of puzzles in one program and prints one record per puzzle,
+ * as CSV or as one JSON object per line, as soon as that puzzle is done.
+ * A manifest is a text file with one puzzle per line: a file name, optionally after "chess" or
+ * "hoppers", or "strings start finish". Blank lines and lines starting with # are skipped, and
+ * relative file names are relative to the manifest. A file with no type is a chess puzzle unless
+ * its name says hoppers or it has a water cell or a green frog in it.
+ * Every puzzle is solved breadth first unless another engine is named after the format, see engine.
+ * The zobrist_collisions field is how many times so far two different boards had the same Zobrist key,
+ * which only the engines that compare configs can run into.
+ */
+public class Batch {
+    /** system property with the most bytes of direct memory the offheap engine may take per puzzle **/
+    public static final String OFF_HEAP_PROPERTY = "puzzles.offheap.bytes";
+    /** direct memory the offheap engine may take per puzzle when the property isn't set **/
+    private static final long OFF_HEAP_BYTES = 1L << 30;
+    /** system property with the directory the external engine keeps its layer files in **/
+    public static final String EXTERNAL_DIR_PROPERTY = "puzzles.external.dir";
+    /** system property with the most states the external engine holds in memory at once **/
+    public static final String EXTERNAL_STATES_PROPERTY = "puzzles.external.states";
+    /** header of the CSV output **/
+    private static final String CSV_HEADER =
+            "puzzle,solvable,path_length,total_configs,unique_configs,wall_ms,peak_frontier,zobrist_collisions,error";
+
+    /**
+     * the main method for batch solving
+     * @param args directory or manifest, then optionally the number of threads, csv or json and the engine
+     * @throws IOException if the directory or manifest can't be read
+     * @throws InterruptedException if interrupted while waiting for the puzzles to be solved
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 4) {
+            System.out.println("Usage: java Batch directory|manifest [threads] [csv|json] [bfs|dfs|backtracking|canonical|astar|greedy|offheap|external|sorting|tree]");
+            return;
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        boolean json = args.length > 2 && args[2].equalsIgnoreCase("json");
+        if (args.length > 2 && !json && !args[2].equalsIgnoreCase("csv")) {
+            throw new IllegalArgumentException("unknown format: " + args[2]);
+        }
+        BatchSolver.Engine engine = engine(args.length > 3 ? args[3] : "bfs");
+
+        List<String> entries = readEntries(Path.of(args[0]));
+        PrintStream out = System.out;
+        if (!json) {
+            out.println(CSV_HEADER);
+        }
+        new BatchSolver(threads, engine).solveAll(entries, Batch::load, result -> {
+            out.println(json ? toJson(result) : toCsv(result));
+            out.flush();
+        });
+    }
+
+    /**
+     * picks how every puzzle of the batch is solved
+     * @param name bfs for the breadth first solvers, the same path as Solver, dfs for DepthFirstSolver,
+     *             which only keeps the current path, or backtracking for BacktrackingSolver, which makes
+     *             and unmakes moves on one board and allocates nothing while it searches, or canonical
+     *             for breadth first on the boards with their symmetries reduced away, or astar or greedy
+     *             for HeuristicSolver with each puzzle's heuristic, or offheap for OffHeapSolver, which
+     *             keeps the visited states in direct memory, at most OFF_HEAP_PROPERTY bytes of it, or
+     *             external for ExternalSolver, which keeps the layers in files under EXTERNAL_DIR_PROPERTY,
+     *             the temporary directory by default, and sorts EXTERNAL_STATES_PROPERTY states at a time, or
+     *             sorting for SortingSolver, which finds each layer's duplicates with parallel sorts, or
+     *             tree for TreeSolver, which keeps how every state was reached in five bytes
+     * @return the engine
+     */
+    private static BatchSolver.Engine engine(String name) {
+        return switch (name.toLowerCase()) {
+            case "bfs" -> BatchSolver.breadthFirst();
+            case "dfs" -> BatchSolver.depthFirst();
+            case "canonical" -> BatchSolver.canonical();
+            case "astar" -> bestFirst(HeuristicSolver.Mode.A_STAR);
+            case "greedy" -> bestFirst(HeuristicSolver.Mode.GREEDY);
+            case "offheap" -> {
+                long capacityBytes = Long.getLong(OFF_HEAP_PROPERTY, OFF_HEAP_BYTES);
+                yield config -> {
+                    OffHeapSolver solver = new OffHeapSolver(config, capacityBytes);
+                    return BatchSolver.found(solver.solve(config), solver, solver.getPeakFrontier());
+                };
+            }
+            case "external" -> {
+                Path directory = Path.of(System.getProperty(EXTERNAL_DIR_PROPERTY,
+                        System.getProperty("java.io.tmpdir")));
+                int runStates = Integer.getInteger(EXTERNAL_STATES_PROPERTY, ExternalSolver.DEFAULT_RUN_STATES);
+                yield config -> {
+                    ExternalSolver solver = new ExternalSolver(config, directory, runStates);
+                    return BatchSolver.found(solver.solve(config), solver, solver.getWidestLayer());
+                };
+            }
+            case "sorting" -> config -> {
+                SortingSolver solver = new SortingSolver(config);
+                return BatchSolver.found(solver.solve(config), solver, solver.getWidestLayer());
+            };
+            case "tree" -> config -> {
+                TreeSolver solver = new TreeSolver(config);
+                return BatchSolver.found(solver.solve(config), solver, solver.getWidestLayer());
+            };
+            case "backtracking" -> config -> {
+                BacktrackingSolver solver = new BacktrackingSolver(mutable(config));
+                return BatchSolver.found(solver.solve(), solver, 0);
+            };
+            default -> throw new IllegalArgumentException("unknown engine: " + name);
+        };
+    }
+
+    /**
+     * @param mode A_STAR to use the heuristics that never overestimate and get a shortest path, GREEDY to
+     *             use the ones that try tight groups of pieces first
+     * @return an engine that solves every puzzle best first with its own heuristic
+     */
+    private static BatchSolver.Engine bestFirst(HeuristicSolver.Mode mode) {
+        boolean aStar = mode == HeuristicSolver.Mode.A_STAR;
+        return config -> {
+            if (config instanceof HoppersConfig) {
+                return bestFirst((HoppersConfig) config,
+                        aStar ? HoppersHeuristic.greenFrogs() : HoppersHeuristic.clustering(), mode);
+            }
+            if (config instanceof ChessConfig) {
+                return bestFirst((ChessConfig) config, aStar ? ChessHeuristic.pieces() : ChessHeuristic.clustering(),
+                        mode);
+            }
+            return bestFirst((StringsConfig) config, new StringsHeuristic(), mode);
+        };
+    }
+
+    /**
+     * @param config a loaded puzzle
+     * @param heuristic estimates the moves left from a config of the puzzle
+     * @param mode how the next config is picked
+     * @param <C> the puzzle's config class
+     * @return what HeuristicSolver found
+     */
+    private static <C extends Configuration> BatchSolver.Result bestFirst(C config, Heuristic<? super C> heuristic,
+                                                                         HeuristicSolver.Mode mode) {
+        HeuristicSolver<C> solver = new HeuristicSolver<>(config, heuristic, mode);
+        return BatchSolver.found(solver.solve(config), solver, 0);
+    }
+
+    /**
+     * @param config a loaded puzzle
+     * @return a board that can make and unmake moves in place, starting from the config
+     */
+    private static MutableBoard mutable(PackedConfiguration config) {
+        if (config instanceof HoppersConfig) {
+            return new MutableHoppersBoard((HoppersConfig) config);
+        }
+        if (config instanceof ChessConfig) {
+            return new MutableChessBoard((ChessConfig) config);
+        }
+        throw new IllegalArgumentException("backtracking only solves hoppers and chess");
+    }
+
+    /**
+     * lists the puzzles to solve
+     * @param source a directory, every file under it is a puzzle, or a manifest
+     * @return one entry per puzzle, each one something load understands
+     * @throws IOException if the directory or manifest can't be read
+     */
+    private static List<String> readEntries(Path source) throws IOException {
+        List<String> entries = new ArrayList<>();
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> files = Files.walk(source, FileVisitOption.FOLLOW_LINKS)) {
+                files.filter(Files::isRegularFile).sorted().forEach(file -> entries.add(file.toString()));
+            }
+            return entries;
+        }
+        Path base = source.toAbsolutePath().getParent();
+        for (String line : Files.readAllLines(source)) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+", 2);
+            if (fields.length == 2 && (fields[0].equals("chess") || fields[0].equals("hoppers"))) {
+                entries.add(fields[0] + " " + base.resolve(fields[1]));
+            } else if (fields[0].equals("strings")) {
+                entries.add(line);
+            } else {
+                entries.add(base.resolve(line).toString());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * loads one entry of the batch
+     * @param entry a file name, optionally after its type, or "strings start finish"
+     * @return the starting config
+     * @throws IOException if the file can't be read
+     */
+    private static PackedConfiguration load(String entry) throws IOException {
+        String[] fields = entry.split(" ", 2);
+        switch (fields[0]) {
+            case "strings" -> {
+                String[] strings = fields[1].strip().split("\\s+");
+                if (strings.length != 2) {
+                    throw new IllegalArgumentException("strings needs a start and a finish: " + entry);
+                }
+                return new StringsConfig(strings[0], strings[1]);
+            }
+            case "chess" -> {
+                return new ChessConfig(readable(fields[1]));
+            }
+            case "hoppers" -> {
+                return new HoppersConfig(readable(fields[1]));
+            }
+            default -> {
+                return isHoppers(readable(entry)) ? new HoppersConfig(entry) : new ChessConfig(entry);
+            }
+        }
+    }
+
+    /**
+     * the configs print and swallow a file they can't read, so check it before they get it
+     * @param filename a puzzle file
+     * @return the same file name
+     * @throws NoSuchFileException if the file can't be read
+     */
+    private static String readable(String filename) throws NoSuchFileException {
+        if (!Files.isReadable(Path.of(filename))) {
+            throw new NoSuchFileException(filename);
+        }
+        return filename;
+    }
+
+    /**
+     * @param filename a puzzle file with no type
+     * @return true if it looks like a hoppers board
+     * @throws IOException if the file can't be read
+     */
+    private static boolean isHoppers(String filename) throws IOException {
+        if (Path.of(filename).getFileName().toString().toLowerCase().contains("hoppers")) {
+            return true;
+        }
+        String board = Files.readString(Path.of(filename));
+        return board.indexOf('*') >= 0 || board.indexOf('G') >= 0;
+    }
+
+    /**
+     * @param result a finished puzzle
+     * @return its CSV record
+     */
+    private static String toCsv(BatchSolver.Result result) {
+        return csvField(result.getFilename()) + ',' + result.isSolvable() + ',' + result.getPathLength() + ','
+                + result.getTotalConfigs() + ',' + result.getUniqueConfigs() + ','
+                + result.getNanos() / 1_000_000 + ',' + result.getPeakFrontier() + ','
+                + Zobrist.getCollisions() + ','
+                + (result.getError() == null ? "" : csvField(String.valueOf(result.getError())));
+    }
+
+    /**
+     * @param value a text field
+     * @return the field, quoted if it has to be
+     */
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * @param result a finished puzzle
+     * @return its JSON object, on one line
+     */
+    private static String toJson(BatchSolver.Result result) {
+        return "{\"puzzle\":" + jsonString(result.getFilename())
+                + ",\"solvable\":" + result.isSolvable()
+                + ",\"path_length\":" + result.getPathLength()
+                + ",\"total_configs\":" + result.getTotalConfigs()
+                + ",\"unique_configs\":" + result.getUniqueConfigs()
+                + ",\"wall_ms\":" + result.getNanos() / 1_000_000
+                + ",\"peak_frontier\":" + result.getPeakFrontier()
+                + ",\"zobrist_collisions\":" + Zobrist.getCollisions()
+                + ",\"error\":" + (result.getError() == null ? "null" : jsonString(String.valueOf(result.getError())))
+                + '}';
+    }
+
+    /**
+     * @param value a text value
+     * @return the value as a JSON string
+     */
+    private static String jsonString(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -1,6 +1,7 @@
 package puzzles.chess.gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -13,9 +14,13 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import puzzles.common.Coordinates;
 import puzzles.common.Observer;
+import puzzles.chess.model.ChessConfig;
 import puzzles.chess.model.ChessModel;
+import puzzles.common.solver.HintPrefetcher;
+import puzzles.common.solver.SolveHandle;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * the gui part of chess
@@ -53,6 +58,9 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
     private HBox loadResetHint;
     private Coordinates selectedCoord;
     private int selectCounter = 1; // keeps track of which select user is up to, odd = from and even = to
+    /** solves the board in the background whenever it changes, so hints are ready when asked for **/
+    private final HintPrefetcher hints = new HintPrefetcher(ChessModel.HINT_BUDGET,
+            (board, guard) -> model.solveHint(board, guard));
 
 
     /**
@@ -94,6 +102,15 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
         stage.setTitle("Chess GUI");
         stage.setScene(scene);
         stage.show();
+        hints.prefetch(model.getCurrConfig());
+    }
+
+    /**
+     * stops the background hint solver when the window closes
+     */
+    @Override
+    public void stop() {
+        hints.shutdown();
     }
 
     /**
@@ -191,6 +208,10 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
             Coordinates toThisCoord = new Coordinates(finalRow, finalCol);
             model.select(selectedCoord, toThisCoord);
             selectCounter++;
+            // warn right away when the capture leaves no way to a solution
+            if (model.isDeadEnd()) {
+                topMsg.setText(topMsg.getText() + " No Solution From Here!");
+            }
         }
     }
 
@@ -231,7 +252,19 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
 
         // hint button
         Button hint = new Button("Hint");
-        hint.setOnAction(event -> model.hint());
+        // the solve runs in the background and the capture is made back on this thread
+        hint.setOnAction(event -> {
+            ChessConfig board = model.getCurrConfig();
+            if (board.isSolution()) {
+                model.hint();
+                return;
+            }
+            CompletableFuture<SolveHandle.Result> result = hints.hint(board);
+            if (!result.isDone()) {
+                topMsg.setText("Thinking...");
+            }
+            result.thenAcceptAsync(solved -> model.applyHint(board, solved), Platform::runLater);
+        });
 
         hbox.setAlignment(Pos.CENTER);
         hbox.getChildren().addAll(load, reset, hint);
@@ -251,6 +284,7 @@ public class ChessGUI extends Application implements Observer<ChessModel, String
         model = chessModel;
         bigBorderPane.setCenter(makeChessBoard());
         this.stage.sizeToScene();
+        hints.prefetch(model.getCurrConfig());
     }
 
     /**
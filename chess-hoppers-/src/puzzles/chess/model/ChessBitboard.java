@@ -0,0 +1,152 @@
+package puzzles.chess.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.PackedBuffer;
+import puzzles.common.solver.PackedConfiguration;
+import puzzles.common.solver.PackedPuzzle;
+import puzzles.common.solver.PackedStateTable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A chess solitaire configuration stored as bitboards over a ChessPacking. Reads the same files as
+ * ChessConfig and generates the same neighbors in the same order, but finds captures with the
+ * precomputed attack tables and rays instead of walking the grid, and a capture copies a few longs
+ * instead of the whole Character[][] grid.
+ * Can be solved with Solver or PackedSolver, and converted to and from ChessConfig for ChessModel.
+ */
+public class ChessBitboard implements PackedConfiguration {
+    /** the packed rules of the file this board came from **/
+    private final ChessPacking layout;
+    /** the three bit planes **/
+    private final long[] state;
+
+    /**
+     * reads a puzzle file
+     * @param filename name of the file to read
+     * @throws IOException with message "File not Found"
+     */
+    public ChessBitboard(String filename) throws IOException {
+        this(new ChessConfig(filename));
+    }
+
+    /**
+     * converts a grid based config
+     * @param config the config to convert
+     */
+    public ChessBitboard(ChessConfig config) {
+        this.layout = (ChessPacking) config.getPackedPuzzle();
+        this.state = new long[layout.stateWidth()];
+        config.pack(state, 0);
+    }
+
+    /**
+     * wraps a state that is already packed
+     * @param layout the packed rules
+     * @param state the bit planes, not copied
+     */
+    ChessBitboard(ChessPacking layout, long[] state) {
+        this.layout = layout;
+        this.state = state;
+    }
+
+    /**
+     * @return true if there is exactly one piece left
+     */
+    @Override
+    public boolean isSolution() {
+        return layout.isSolution(state, 0);
+    }
+
+    /**
+     * @return every capture that can be made from this board, in ChessConfig order
+     */
+    @Override
+    public Collection<Configuration> getNeighbors() {
+        PackedBuffer children = new PackedBuffer(state.length, 16);
+        layout.neighbors(state, 0, children);
+        ArrayList<Configuration> neighbors = new ArrayList<>(children.size());
+        for (int i = 0; i < children.size(); i++) {
+            neighbors.add(new ChessBitboard(layout,
+                    Arrays.copyOfRange(children.array(), children.offset(i), children.offset(i) + state.length)));
+        }
+        return neighbors;
+    }
+
+    @Override
+    public PackedPuzzle getPackedPuzzle() {
+        return layout;
+    }
+
+    @Override
+    public void pack(long[] dest, int offset) {
+        System.arraycopy(state, 0, dest, offset, state.length);
+    }
+
+    /**
+     * @param row a row
+     * @param col a column
+     * @return the character on that square
+     */
+    public char pieceAt(int row, int col) {
+        int square = row * layout.getGeometry().getCols() + col;
+        return layout.charOf(layout.squareAt(state, 0, square), square);
+    }
+
+    /**
+     * @return the number of pieces left
+     */
+    public int getNumberOfPieces() {
+        return layout.countPieces(state, 0);
+    }
+
+    /**
+     * converts back to a grid based config, for ChessModel and the views
+     * @return a ChessConfig with the same pieces
+     */
+    public ChessConfig toConfig() {
+        return new ChessConfig(layout.decode(state, 0), getNumberOfPieces(), layout);
+    }
+
+    /**
+     * @return hash of the bit planes
+     */
+    @Override
+    public int hashCode() {
+        return PackedStateTable.hash(state, 0, state.length);
+    }
+
+    /**
+     * @param other the configuration being compared to
+     * @return true if both have the same bit planes
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof ChessBitboard) {
+            return Arrays.equals(state, ((ChessBitboard) other).state);
+        }
+        return false;
+    }
+
+    /**
+     * @return the board, formatted like ChessConfig.toString
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        ChessGeometry geometry = layout.getGeometry();
+        for (int i = 0; i < geometry.getRows(); i++) {
+            for (int j = 0; j < geometry.getCols(); j++) {
+                sb.append(pieceAt(i, j));
+                if (j != geometry.getCols() - 1) {
+                    sb.append(" ");
+                }
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
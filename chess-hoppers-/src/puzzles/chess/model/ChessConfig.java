@@ -1,6 +1,10 @@
 package puzzles.chess.model;
 
+import puzzles.common.Coordinates;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.PackedConfiguration;
+import puzzles.common.solver.PackedPuzzle;
+import puzzles.common.solver.Zobrist;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
@@ -12,10 +16,8 @@ import java.util.*;
  * @author KUNLIN WEN
  * @github KW9521
  */
-public class ChessConfig implements Configuration {
+public class ChessConfig implements PackedConfiguration {
 
-    public static int horizontalRow; // dimensions
-    public static int verticalCol; // dimensions
     public Character[][] grid;
     static char ROOK = 'R';
     static char BISHOP = 'B';
@@ -25,6 +27,8 @@ public class ChessConfig implements Configuration {
     static char KNIGHT = 'N';
     static char EMPTY = '.';
     private int numberOfPieces;
+    private ChessPacking layout; // packed rules, shared by every config made from the same file
+    private long key; // Zobrist key of the grid, kept up to date by every capture
 
     /**
      * Reads file, extract the number of rows and columns. Populates a 2D array and keeps track of how many chess
@@ -38,22 +42,24 @@ public class ChessConfig implements Configuration {
             // reads first line
             String firstLine = line.readLine();
             String[] dimensions = firstLine.split(" ");
-            horizontalRow = Integer.parseInt(dimensions[0]);
-            verticalCol = Integer.parseInt(dimensions[1]);
+            int horizontalRow = Integer.parseInt(dimensions[0]); // dimensions
+            int verticalCol = Integer.parseInt(dimensions[1]);
 
             // initializes grid
             grid = new Character[horizontalRow][verticalCol];
 
             // populates the grid
-            for (int i = 0; i < this.horizontalRow; i++) {
+            for (int i = 0; i < horizontalRow; i++) {
                 String[] gridReading = line.readLine().split(" ");
-                for (int j = 0; j < this.verticalCol; j++) {
+                for (int j = 0; j < verticalCol; j++) {
                     grid[i][j] = gridReading[j].charAt(0);
                     if (gridReading[j].matches("[a-zA-Z]+")) {
                         numberOfPieces++;
                     }
                 }
             }
+            layout = new ChessPacking(grid);
+            key = layout.zobristKey(grid);
         } catch (IOException ioe) {
             System.err.println("File not found");
         }
@@ -67,10 +73,11 @@ public class ChessConfig implements Configuration {
                         int capturePositionRow, int capturePositionCol) {
 
         // copies from other config
-        this.horizontalRow = other.horizontalRow;
-        this.verticalCol = other.verticalCol;
         this.numberOfPieces = other.numberOfPieces;
         this.numberOfPieces--;
+        this.layout = other.layout;
+        int horizontalRow = getRows();
+        int verticalCol = getCols();
 
         // creates copy of current grid
         this.grid = new Character[horizontalRow][verticalCol];
@@ -81,10 +88,72 @@ public class ChessConfig implements Configuration {
         }
 
         //captures
+        this.key = other.key ^ captureKey(piece, currentPositionRow, currentPositionCol,
+                other.grid[capturePositionRow][capturePositionCol], capturePositionRow, capturePositionCol);
         this.grid[currentPositionRow][currentPositionCol] = EMPTY;
         this.grid[capturePositionRow][capturePositionCol] = piece;
     }
 
+    /**
+     * makes a config out of a grid that was unpacked from a ChessBitboard
+     * @param grid the grid
+     * @param numberOfPieces number of pieces on the grid
+     * @param layout the packed rules it came from
+     */
+    ChessConfig(Character[][] grid, int numberOfPieces, ChessPacking layout) {
+        this.grid = grid;
+        this.numberOfPieces = numberOfPieces;
+        this.layout = layout;
+        this.key = layout.zobristKey(grid);
+    }
+
+    /**
+     * what a capture changes in the Zobrist key: the piece leaves its square, and the captured piece on
+     * the other square is replaced by it
+     * @param piece the capturing piece
+     * @param fromRow row it moves from
+     * @param fromCol column it moves from
+     * @param captured the captured piece
+     * @param toRow row of the captured piece
+     * @param toCol column of the captured piece
+     * @return the keys to XOR into the config's key
+     */
+    private long captureKey(char piece, int fromRow, int fromCol, char captured, int toRow, int toCol) {
+        int cols = layout.getGeometry().getCols();
+        int code = ChessPacking.codeOf(piece);
+        return layout.zobrist(fromRow * cols + fromCol, code)
+                ^ layout.zobrist(toRow * cols + toCol, ChessPacking.codeOf(captured))
+                ^ layout.zobrist(toRow * cols + toCol, code);
+    }
+
+    /**
+     * captures in place, the piece on one square moves onto another square and takes what was there.
+     * changes to the grid should go through here so the key stays right
+     * @param fromRow row of the capturing piece
+     * @param fromCol column of the capturing piece
+     * @param toRow row of the captured piece
+     * @param toCol column of the captured piece
+     */
+    public void capture(int fromRow, int fromCol, int toRow, int toCol) {
+        char piece = grid[fromRow][fromCol];
+        key ^= captureKey(piece, fromRow, fromCol, grid[toRow][toCol], toRow, toCol);
+        grid[fromRow][fromCol] = EMPTY;
+        grid[toRow][toCol] = piece;
+        numberOfPieces--;
+    }
+
+    /**
+     * makes the config a capture leads to, this one is left alone
+     * @param fromRow row of the capturing piece
+     * @param fromCol column of the capturing piece
+     * @param toRow row of the captured piece
+     * @param toCol column of the captured piece
+     * @return the new config
+     */
+    public ChessConfig captured(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessConfig(this, grid[fromRow][fromCol], fromRow, fromCol, toRow, toCol);
+    }
+
     /**
      * if the number of pieces in current config is 1
      * @return true if numOfPiece is 1, false otherwise
@@ -111,7 +180,7 @@ public class ChessConfig implements Configuration {
         }
 
         // top right
-        if ((row - 1 >= 0) && (col + 1 < verticalCol) && (grid[row - 1][col + 1] != EMPTY)) {
+        if ((row - 1 >= 0) && (col + 1 < getCols()) && (grid[row - 1][col + 1] != EMPTY)) {
             pawnSuccessors.add(new ChessConfig(this, PAWN, row, col, row - 1, col + 1));
         }
 
@@ -152,8 +221,8 @@ public class ChessConfig implements Configuration {
             }
 
             // checks if it's within bounds and if dest pos is a valid capture
-            while ((row + rowChange >= 0) && (row + rowChange < horizontalRow) &&
-                    (col + colChange >= 0) && (col + colChange < verticalCol))  {
+            while ((row + rowChange >= 0) && (row + rowChange < getRows()) &&
+                    (col + colChange >= 0) && (col + colChange < getCols()))  {
 
                 // goes to dest's row and col
                 row = row + rowChange;
@@ -205,8 +274,8 @@ public class ChessConfig implements Configuration {
                 colChange = -1;
             }
 
-            while ((row + rowChange >= 0) && (row + rowChange < horizontalRow) &&
-                    (col + colChange >= 0) && (col + colChange < verticalCol)) {
+            while ((row + rowChange >= 0) && (row + rowChange < getRows()) &&
+                    (col + colChange >= 0) && (col + colChange < getCols())) {
 
                 // goes to dest's row and col
                 row = row + rowChange;
@@ -266,8 +335,8 @@ public class ChessConfig implements Configuration {
                 colChange = -1;
             }
 
-            while ((row + rowChange >= 0) && (row + rowChange < horizontalRow) &&
-                    (col + colChange >= 0) && (col + colChange < verticalCol)) {
+            while ((row + rowChange >= 0) && (row + rowChange < getRows()) &&
+                    (col + colChange >= 0) && (col + colChange < getCols())) {
                 row = row + rowChange;
                 col = col + colChange;
                 piece = grid[row][col];
@@ -321,8 +390,8 @@ public class ChessConfig implements Configuration {
                 colChange = -1;
             }
 
-            if ((row + rowChange >= 0) && (row + rowChange < horizontalRow) &&
-                (col + colChange >= 0) && (col + colChange < verticalCol) &&
+            if ((row + rowChange >= 0) && (row + rowChange < getRows()) &&
+                (col + colChange >= 0) && (col + colChange < getCols()) &&
                 (grid[row + rowChange][col + colChange] != EMPTY)) {
                     kingSuccessors.add(new ChessConfig(this, KING, row, col, row + rowChange, col + colChange));
             }
@@ -368,8 +437,8 @@ public class ChessConfig implements Configuration {
                 colChange = -2;
             }
 
-            if ((row + rowChange >= 0) && (row + rowChange < horizontalRow) &&
-                    (col + colChange >= 0) && (col + colChange < verticalCol) &&
+            if ((row + rowChange >= 0) && (row + rowChange < getRows()) &&
+                    (col + colChange >= 0) && (col + colChange < getCols()) &&
                     (grid[row + rowChange][col + colChange] != EMPTY)) {
                 knightSuccessors.add(new ChessConfig(this, KNIGHT, row, col, row + rowChange, col + colChange));
             }
@@ -386,8 +455,8 @@ public class ChessConfig implements Configuration {
     public Collection<Configuration> getNeighbors() {
         List<Configuration> neighbors = new LinkedList<>();
 
-        for (int i = 0; i < this.horizontalRow; i++) { // loops thru row
-            for (int j = 0; j < this.verticalCol; j++) { // loops thru col
+        for (int i = 0; i < getRows(); i++) { // loops thru row
+            for (int j = 0; j < getCols(); j++) { // loops thru col
                 if (grid[i][j] != EMPTY) {
                     Character currentPiece = grid[i][j];
 
@@ -417,7 +486,78 @@ public class ChessConfig implements Configuration {
     }
 
     /**
-     * Checks if this configuration's grid is equal to other configuration's grid
+     * checks one capture without making any neighbors, only the squares between from and to are looked
+     * at. the same captures getNeighbors makes are legal
+     * @param from the square of the piece that captures
+     * @param to the square of the piece to be captured
+     * @return true if the piece on from can capture the piece on to
+     */
+    public boolean isLegal(Coordinates from, Coordinates to) {
+        if (from.row() < 0 || from.row() >= getRows() || from.col() < 0 || from.col() >= getCols() ||
+                to.row() < 0 || to.row() >= getRows() || to.col() < 0 || to.col() >= getCols()) {
+            return false;
+        }
+        char piece = grid[from.row()][from.col()];
+        if (piece == EMPTY || grid[to.row()][to.col()] == EMPTY) {
+            return false;
+        }
+        int rowChange = to.row() - from.row();
+        int colChange = to.col() - from.col();
+        int rowDistance = Math.abs(rowChange);
+        int colDistance = Math.abs(colChange);
+        if (rowDistance == 0 && colDistance == 0) {
+            return false;
+        }
+        boolean straight = rowDistance == 0 || colDistance == 0;
+        boolean diagonal = rowDistance == colDistance;
+
+        if (piece == PAWN) {
+            return rowChange == -1 && colDistance == 1;
+        } else if (piece == KING) {
+            return rowDistance <= 1 && colDistance <= 1;
+        } else if (piece == KNIGHT) {
+            return (rowDistance == 1 && colDistance == 2) || (rowDistance == 2 && colDistance == 1);
+        } else if ((piece == ROOK && straight) || (piece == BISHOP && diagonal) ||
+                (piece == QUEEN && (straight || diagonal))) {
+            // sliders capture the first piece in the direction they move, so every square between is empty
+            int rowStep = Integer.signum(rowChange);
+            int colStep = Integer.signum(colChange);
+            for (int row = from.row() + rowStep, col = from.col() + colStep;
+                 row != to.row() || col != to.col(); row += rowStep, col += colStep) {
+                if (grid[row][col] != EMPTY) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * gets the packed rules for this board, makes them the first time they are asked for
+     * @return the packed rules
+     */
+    @Override
+    public PackedPuzzle getPackedPuzzle() {
+        if (layout == null) {
+            layout = new ChessPacking(grid);
+        }
+        return layout;
+    }
+
+    /**
+     * packs the grid into the three bit planes of a ChessBitboard
+     * @param dest the array to write to
+     * @param offset where the state starts in dest
+     */
+    @Override
+    public void pack(long[] dest, int offset) {
+        ((ChessPacking) getPackedPuzzle()).encode(grid, dest, offset);
+    }
+
+    /**
+     * Checks if this configuration's grid is equal to other configuration's grid.
+     * Configs with different keys can't be equal, the grids are only compared when the keys match
      * @param other the configuration being compared to
      * @return true if both grid r the same, false otherwise
      */
@@ -425,18 +565,32 @@ public class ChessConfig implements Configuration {
     public boolean equals(Object other) {
         if (other instanceof ChessConfig) {
             ChessConfig chessConfigOther = (ChessConfig) other;
-            return Arrays.deepEquals(this.grid, chessConfigOther.grid);
+            if (this.key != chessConfigOther.key) {
+                return false;
+            }
+            boolean same = Arrays.deepEquals(this.grid, chessConfigOther.grid);
+            if (!same) {
+                Zobrist.recordCollision();
+            }
+            return same;
         }
         return false;
     }
 
     /**
-     * gets the deep hash code of this configuration's grid
+     * gets the Zobrist key of this configuration's grid folded to an int
      * @return this config's grid's hashcode
      */
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(this.grid);
+        return Zobrist.fold(key);
+    }
+
+    /**
+     * @return the 64 bit Zobrist key of this configuration's grid
+     */
+    public long getKey() {
+        return key;
     }
 
     /**
@@ -449,10 +603,10 @@ public class ChessConfig implements Configuration {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < horizontalRow; i++) {
-            for (int j = 0; j < verticalCol; j++) {
+        for (int i = 0; i < getRows(); i++) {
+            for (int j = 0; j < getCols(); j++) {
                 sb.append(grid[i][j]);
-                if (j != verticalCol - 1) {
+                if (j != getCols() - 1) {
                     sb.append(" ");
                 }
             }
@@ -468,20 +622,20 @@ public class ChessConfig implements Configuration {
      */
     public void modelGrid() {
         System.out.print("  ");
-        for (int i = 0; i < verticalCol; i++) {
+        for (int i = 0; i < getCols(); i++) {
             System.out.print(i + " ");
         }
 
         System.out.println();
         System.out.print("   ");
-        for (int col = 0; col < verticalCol* 2; col++) {
+        for (int col = 0; col < getCols()* 2; col++) {
             System.out.print("-");
         }
         System.out.println();
 
-        for (int i = 0; i < horizontalRow; i++) {
+        for (int i = 0; i < getRows(); i++) {
             System.out.print(i  + "| ");
-            for (int j = 0; j < verticalCol; j++) {
+            for (int j = 0; j < getCols(); j++) {
                 System.out.print(grid[i][j] + " ");
             }
             System.out.println();
@@ -490,6 +644,20 @@ public class ChessConfig implements Configuration {
 
     }
 
+    /**
+     * @return rows of the board, from the layout shared by every config of the same file
+     */
+    public int getRows() {
+        return layout.getGeometry().getRows();
+    }
+
+    /**
+     * @return columns of the board, from the layout shared by every config of the same file
+     */
+    public int getCols() {
+        return layout.getGeometry().getCols();
+    }
+
     /**
      * decreases the number of pieces on the board by 1
      */
@@ -0,0 +1,235 @@
+package puzzles.chess.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Move tables for one board size, shared by every board of that size. Squares are numbered
+ * row * cols + col and bitboards over them are long[] words, square s is bit s % 64 of word s / 64.
+ * Holds the knight, king and pawn targets of every square, both as lists in the order ChessConfig
+ * tries them and as attack masks, and the 8 sliding rays of every square as masks.
+ */
+public class ChessGeometry {
+    /** the 8 directions a ray can go in, as row and column changes **/
+    static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, 1}, {1, -1}, {-1, -1}};
+    /** rays that go towards higher square numbers, where the first blocker is the lowest bit **/
+    static final boolean[] TOWARDS_HIGHER = {true, false, true, false, true, false, true, false};
+    /** ray directions for the rook, in the order ChessConfig.rookMoves tries them **/
+    static final int[] ROOK_RAYS = {0, 1, 2, 3};
+    /** ray directions for the bishop, in the order ChessConfig.bishopMoves tries them **/
+    static final int[] BISHOP_RAYS = {4, 5, 6, 7};
+    /** ray directions for the queen, in the order ChessConfig.queenMoves tries them **/
+    static final int[] QUEEN_RAYS = {2, 1, 0, 3, 4, 5, 6, 7};
+    /** knight jumps, in the order ChessConfig.knightMoves tries them **/
+    private static final int[][] KNIGHT_JUMPS = {{1, 2}, {2, 1}, {-2, 1}, {2, -1}, {-2, -1}, {-1, 2}, {1, -2}, {-1, -2}};
+    /** pawn captures, in the order ChessConfig.pawnMoves tries them **/
+    private static final int[][] PAWN_CAPTURES = {{-1, -1}, {-1, 1}};
+
+    /** one geometry per board size **/
+    private static final Map<Long, ChessGeometry> CACHE = new ConcurrentHashMap<>();
+
+    /** rows of the board **/
+    private final int rows;
+    /** columns of the board **/
+    private final int cols;
+    /** number of squares **/
+    private final int squares;
+    /** longs in one bitboard **/
+    private final int words;
+    /** target squares of a knight / king / pawn on every square **/
+    private final int[][] knightTargets;
+    private final int[][] kingTargets;
+    private final int[][] pawnTargets;
+    /** the same targets as bitboards, words longs per square **/
+    private final long[] knightAttacks;
+    private final long[] kingAttacks;
+    private final long[] pawnAttacks;
+    /** rays[(direction * squares + square) * words + word], not including the square itself **/
+    private final long[] rays;
+
+    /**
+     * gets the tables for a board size, building them the first time that size is seen
+     * @param rows rows of the board
+     * @param cols columns of the board
+     * @return the shared tables
+     */
+    public static ChessGeometry of(int rows, int cols) {
+        return CACHE.computeIfAbsent(((long) rows << 32) | cols, key -> new ChessGeometry(rows, cols));
+    }
+
+    /**
+     * builds every table for one board size
+     * @param rows rows of the board
+     * @param cols columns of the board
+     */
+    private ChessGeometry(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.squares = rows * cols;
+        this.words = Math.max(1, (squares + 63) / 64);
+        this.knightTargets = new int[squares][];
+        this.kingTargets = new int[squares][];
+        this.pawnTargets = new int[squares][];
+        this.knightAttacks = new long[squares * words];
+        this.kingAttacks = new long[squares * words];
+        this.pawnAttacks = new long[squares * words];
+        this.rays = new long[DIRECTIONS.length * squares * words];
+        for (int square = 0; square < squares; square++) {
+            knightTargets[square] = targets(square, KNIGHT_JUMPS, knightAttacks);
+            kingTargets[square] = targets(square, DIRECTIONS, kingAttacks);
+            pawnTargets[square] = targets(square, PAWN_CAPTURES, pawnAttacks);
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                int row = square / cols + DIRECTIONS[direction][0];
+                int col = square % cols + DIRECTIONS[direction][1];
+                int base = (direction * squares + square) * words;
+                while (row >= 0 && row < rows && col >= 0 && col < cols) {
+                    int target = row * cols + col;
+                    rays[base + (target >>> 6)] |= 1L << target;
+                    row += DIRECTIONS[direction][0];
+                    col += DIRECTIONS[direction][1];
+                }
+            }
+        }
+    }
+
+    /**
+     * works out the squares one step away from a square
+     * @param square the square
+     * @param steps row and column changes, in the order to keep
+     * @param attacks the attack table to fill in for this square
+     * @return the target squares that are on the board
+     */
+    private int[] targets(int square, int[][] steps, long[] attacks) {
+        int[] found = new int[steps.length];
+        int count = 0;
+        for (int[] step : steps) {
+            int row = square / cols + step[0];
+            int col = square % cols + step[1];
+            if (row >= 0 && row < rows && col >= 0 && col < cols) {
+                int target = row * cols + col;
+                found[count++] = target;
+                attacks[square * words + (target >>> 6)] |= 1L << target;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * finds the first occupied square along a ray. the ray is masked with the occupancy one word at a
+     * time, towards higher squares the nearest blocker is the lowest set bit, otherwise the highest
+     * @param occupied the occupancy bitboard
+     * @param offset where the bitboard starts in occupied
+     * @param square the square the ray starts from
+     * @param direction the ray direction
+     * @return the first occupied square, or -1 if the ray is empty
+     */
+    public int firstBlocker(long[] occupied, int offset, int square, int direction) {
+        int base = (direction * squares + square) * words;
+        if (TOWARDS_HIGHER[direction]) {
+            for (int word = 0; word < words; word++) {
+                long hits = rays[base + word] & occupied[offset + word];
+                if (hits != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(hits);
+                }
+            }
+        } else {
+            for (int word = words - 1; word >= 0; word--) {
+                long hits = rays[base + word] & occupied[offset + word];
+                if (hits != 0) {
+                    return (word << 6) + 63 - Long.numberOfLeadingZeros(hits);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param square a square
+     * @param direction a ray direction
+     * @param target another square
+     * @return true if target is on the ray from square in that direction
+     */
+    public boolean onRay(int square, int direction, int target) {
+        return (rays[(direction * squares + square) * words + (target >>> 6)] & (1L << target)) != 0;
+    }
+
+    /**
+     * @param square a square
+     * @return the squares a knight there can capture on, in ChessConfig order
+     */
+    public int[] knightTargets(int square) {
+        return knightTargets[square];
+    }
+
+    /**
+     * @param square a square
+     * @return the squares a king there can capture on, in ChessConfig order
+     */
+    public int[] kingTargets(int square) {
+        return kingTargets[square];
+    }
+
+    /**
+     * @param square a square
+     * @return the squares a pawn there can capture on, in ChessConfig order
+     */
+    public int[] pawnTargets(int square) {
+        return pawnTargets[square];
+    }
+
+    /**
+     * @param square a square
+     * @param target another square
+     * @return true if a knight on square attacks target
+     */
+    public boolean knightAttacks(int square, int target) {
+        return (knightAttacks[square * words + (target >>> 6)] & (1L << target)) != 0;
+    }
+
+    /**
+     * @param square a square
+     * @param target another square
+     * @return true if a king on square attacks target
+     */
+    public boolean kingAttacks(int square, int target) {
+        return (kingAttacks[square * words + (target >>> 6)] & (1L << target)) != 0;
+    }
+
+    /**
+     * @param square a square
+     * @param target another square
+     * @return true if a pawn on square attacks target
+     */
+    public boolean pawnAttacks(int square, int target) {
+        return (pawnAttacks[square * words + (target >>> 6)] & (1L << target)) != 0;
+    }
+
+    /**
+     * @return rows of the board
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return columns of the board
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return number of squares
+     */
+    public int getSquares() {
+        return squares;
+    }
+
+    /**
+     * @return longs in one bitboard
+     */
+    public int getWords() {
+        return words;
+    }
+}
@@ -0,0 +1,54 @@
+package puzzles.chess.model;
+
+import puzzles.common.solver.Heuristic;
+
+/**
+ * Heuristics for HeuristicSolver on chess solitaire boards.
+ */
+public class ChessHeuristic {
+
+    /**
+     * every capture removes exactly one piece, so pieces minus one is exactly the captures left on any
+     * path to a solution. admissible, but every config at the same depth gets the same f
+     * @return the number of pieces minus one
+     */
+    public static Heuristic<ChessConfig> pieces() {
+        return config -> Math.max(0, config.getNumberOfPieces() - 1);
+    }
+
+    /**
+     * pieces left first, then how spread out they are. a piece far from the others can't be captured and
+     * can't capture, so tight groups are tried first. for GREEDY mode, it can overestimate
+     * @return the pieces, weighted, plus their distance from their middle
+     */
+    public static Heuristic<ChessConfig> clustering() {
+        return config -> {
+            Character[][] grid = config.grid;
+            int rows = grid.length;
+            int cols = rows == 0 ? 0 : grid[0].length;
+            int pieces = 0;
+            int rowSum = 0;
+            int colSum = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    if (grid[row][col] != ChessConfig.EMPTY) {
+                        pieces++;
+                        rowSum += row;
+                        colSum += col;
+                    }
+                }
+            }
+            int spread = 0;
+            for (int row = 0; row < rows && pieces > 0; row++) {
+                for (int col = 0; col < cols; col++) {
+                    if (grid[row][col] != ChessConfig.EMPTY) {
+                        spread += Math.max(Math.abs(row * pieces - rowSum), Math.abs(col * pieces - colSum)) / pieces;
+                    }
+                }
+            }
+            // the spread can't reach this, so fewer pieces always wins
+            int weight = rows * cols * Math.max(rows, cols) + 1;
+            return Math.max(0, config.getNumberOfPieces() - 1) * weight + spread;
+        };
+    }
+}
@@ -3,7 +3,14 @@ package puzzles.chess.model;
 import puzzles.common.Coordinates;
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.DistanceMap;
+import puzzles.common.solver.HintCache;
+import puzzles.common.solver.PackedConfiguration;
+import puzzles.common.solver.SolutionStore;
+import puzzles.common.solver.SolveBudget;
+import puzzles.common.solver.SolveGuard;
+import puzzles.common.solver.SolveHandle;
+import puzzles.common.solver.SolveOutcome;
 import java.io.*;
 import java.util.*;
 
@@ -20,7 +27,8 @@ public class ChessModel{
     private static ChessConfig currConfig;
 
     public enum GameState {
-        LOADED, FAILED_LOAD, SELECTED, CAPTURED, CANT_CAPTURE, NEXT_STEP, RESET_PUZZLE, SOLUTION, NO_SOLUTION
+        LOADED, FAILED_LOAD, SELECTED, CAPTURED, CANT_CAPTURE, NEXT_STEP, RESET_PUZZLE, SOLUTION, NO_SOLUTION,
+        BUDGET_EXCEEDED
     }
     public static final EnumMap<GameState, String> STATE_MSGS = new EnumMap<>(Map.of(
             GameState.LOADED, "Loaded: ",
@@ -31,8 +39,13 @@ public class ChessModel{
             GameState.NEXT_STEP, "Next Step!",
             GameState.RESET_PUZZLE, "Puzzle reset!",
             GameState.SOLUTION, "Solution!",
-            GameState.NO_SOLUTION, "No Solution!"
+            GameState.NO_SOLUTION, "No Solution!",
+            GameState.BUDGET_EXCEEDED, "Hint Gave Up, Board Too Big!"
     ));
+    /** how long and how big a hint's search may get before it gives up **/
+    public static final SolveBudget HINT_BUDGET = new SolveBudget(10_000, 5_000_000);
+    /** how big a puzzle may be to have every reachable board solved up front when it loads **/
+    public static final SolveBudget ANALYSIS_BUDGET = new SolveBudget(2_000, 1_000_000);
 
     private GameState gameState;
 
@@ -45,6 +58,8 @@ public class ChessModel{
     public int colDim;
     private int cPos;
     private int rPos;
+    /** what earlier hints of the loaded puzzle found **/
+    private volatile HintCache hintCache;
 
     /**
      * calls the loadFile() and tries to load file
@@ -79,8 +94,8 @@ public class ChessModel{
             currConfig = new ChessConfig(filename);
             currConfig.modelGrid();
 
-            rowDim = ChessConfig.horizontalRow;
-            colDim = ChessConfig.verticalCol;
+            rowDim = currConfig.getRows();
+            colDim = currConfig.getCols();
 
             alertObservers(STATE_MSGS.get(GameState.LOADED) + FILENAME);
             gameState = GameState.LOADED;
@@ -110,29 +125,73 @@ public class ChessModel{
      * @return
      */
     public ChessConfig hint(){
-        Solver solver = new Solver(currConfig);
             if(currConfig.isSolution()){
                 alertObservers(STATE_MSGS.get(GameState.SOLUTION));
                 return currConfig;
             }
             else {
-                List<Configuration> pathList= solver.solve(currConfig);
-                if(!pathList.isEmpty()){
-                    currConfig = (ChessConfig) pathList.get(1);
-                    alertObservers(STATE_MSGS.get(GameState.NEXT_STEP));
-                    currConfig.modelGrid();
+                return applyHint(currConfig, SolveHandle.submit(currConfig, HINT_BUDGET, null, Runnable::run,
+                        this::solveHint).getFuture().join());
+        }
+    }
+
+    /**
+     * finds the path from a board to a solution, reusing what earlier hints of the same puzzle found.
+     * the first hint of a puzzle, or its prefetch, analyzes it up front if it is small enough.
+     * a hint from a board on a path found before, in this run or stored by an earlier one, is a lookup,
+     * fits SolveHandle.Search
+     * @param board the board to solve
+     * @param guard the started guard to check while searching
+     * @return what was found
+     */
+    public SolveHandle.Result solveHint(PackedConfiguration board, SolveGuard guard) {
+        SolutionStore store = SolutionStore.openDefault();
+        SolveHandle.Result known = store == null ? null : store.get(board);
+        if (known != null) {
+            return known;
+        }
+        HintCache cache;
+        synchronized (this) {
+            if (hintCache == null || hintCache.getPuzzle() != board.getPackedPuzzle()) {
+                hintCache = new HintCache(board.getPackedPuzzle());
+                hintCache.analyze(board, ANALYSIS_BUDGET);
+            }
+            cache = hintCache;
+        }
+        SolveHandle.Result result = cache.solve(board, guard);
+        if (store != null) {
+            store.put(board, result, false);
+        }
+        return result;
+    }
 
-                    // if it is last piece on gui board, then is solution
-                    if(currConfig.getNumberOfPieces() == 1){
-                        alertObservers(STATE_MSGS.get(GameState.SOLUTION));
-                    }
+    /**
+     * moves one step along a hint that was solved for a board that isn't solved yet, used when the hint
+     * was solved in the background. does nothing if the puzzle has left that board since
+     * @param board the board the hint was solved for
+     * @param result what solving it found
+     * @return the next config towards solution, or the current one if there is none
+     */
+    public ChessConfig applyHint(ChessConfig board, SolveHandle.Result result){
+        if (!currConfig.equals(board) || result.getOutcome() == SolveOutcome.CANCELLED) {
+            return currConfig;
+        }
+        List<Configuration> pathList= result.getPath();
+        if(!pathList.isEmpty()){
+            currConfig = ((ChessBitboard) pathList.get(1)).toConfig();
+            alertObservers(STATE_MSGS.get(GameState.NEXT_STEP));
+            currConfig.modelGrid();
 
-                    return currConfig; // returns the next config towards solution
-                } else {
-                    alertObservers(STATE_MSGS.get(GameState.NO_SOLUTION));
-                }
+            // if it is last piece on gui board, then is solution
+            if(currConfig.getNumberOfPieces() == 1){
+                alertObservers(STATE_MSGS.get(GameState.SOLUTION));
+            }
+        } else if (result.getOutcome() == SolveOutcome.BUDGET_EXCEEDED) {
+            alertObservers(STATE_MSGS.get(GameState.BUDGET_EXCEEDED));
+        } else {
+            alertObservers(STATE_MSGS.get(GameState.NO_SOLUTION));
         }
-        return currConfig;
+        return currConfig; // returns the next config towards solution
     }
 
     /**
@@ -170,17 +229,14 @@ public class ChessModel{
      * @param destCoord the coord to be captured
      */
     public void select(Coordinates startCoord, Coordinates destCoord){
-        char type = currConfig.grid[startCoord.row()][startCoord.col()];
-
-        if (!validCaptureModel(destCoord, type)){
+        if (!currConfig.isLegal(startCoord, destCoord)){
             alertObservers(STATE_MSGS.get(GameState.CANT_CAPTURE) + startCoord + " to " + destCoord);
             System.out.println("Can't capture from "+ startCoord + " to "+ destCoord);
             currConfig.modelGrid();
         }
         else{
-            currConfig.grid[startCoord.row()][startCoord.col()] = '.';
-            currConfig.grid[destCoord.row()][destCoord.col()] = type;
-            currConfig.decreaseOnce();
+            // a new config, so a hint solved for the board before the capture can tell it was left
+            currConfig = currConfig.captured(startCoord.row(), startCoord.col(), destCoord.row(), destCoord.col());
 
             if(currConfig.getNumberOfPieces() == 1){
                 alertObservers(STATE_MSGS.get(GameState.SOLUTION));
@@ -191,40 +247,6 @@ public class ChessModel{
         }
     }
 
-    /**
-     * generates a set of neighbors for current config, checks if each neighbor's dest coord is
-     * changed to wtv is at starting coord
-     * @param destCoord coord to check
-     * @param type type of chess piece at starting coord
-     * @return true if one of the neighbor's dest coord is changed to starting coord's chess piece, false otherwise
-     */
-    private boolean validCaptureModel(Coordinates destCoord, char type) {
-        if (isWithinBounds(destCoord)) {
-
-            Collection<Configuration> neighbors = currConfig.getNeighbors();
-            for (Configuration x : neighbors) {
-                ChessConfig y = (ChessConfig) x;
-
-                // checks if piece at dest coord is same as start coord
-                if (y.grid[destCoord.row()][destCoord.col()] == type) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * checks if dest coord is within bounds
-     * @param destCoord coord to check
-     * @return true if it is wihin bounds, false otherwise
-     */
-    private boolean isWithinBounds(Coordinates destCoord){
-        return destCoord.row() >= 0 && destCoord.row() < ChessConfig.horizontalRow &&
-                destCoord.col() >= 0 && destCoord.col() < ChessConfig.verticalCol;
-
-    }
-
     /**
      * resets the ChessConfig to the most recent file
      * @throws IOException
@@ -238,6 +260,17 @@ public class ChessModel{
         } catch (IOException ioe) {}
     }
 
+    /**
+     * checks the current board against the puzzle's analysis, only known once a hint or a prefetch has
+     * analyzed the puzzle
+     * @return true if no solution can be reached from the current board any more
+     */
+    public boolean isDeadEnd(){
+        HintCache cache = hintCache;
+        return cache != null && cache.getPuzzle() == currConfig.getPackedPuzzle()
+                && cache.distance(currConfig) == DistanceMap.DEAD;
+    }
+
     /**
      * @return the current config
      */
@@ -0,0 +1,333 @@
+package puzzles.chess.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.GridSymmetry;
+import puzzles.common.solver.LayeredPuzzle;
+import puzzles.common.solver.PackedBuffer;
+import puzzles.common.solver.SymmetricPuzzle;
+import puzzles.common.solver.Zobrist;
+
+/**
+ * The packed rules of one chess solitaire file. A board is three bit planes over the squares of a
+ * ChessGeometry, the piece on a square is the 3 bit code made by its bits in the planes
+ * (1 king, 2 queen, 3 rook, 4 bishop, 5 knight, 6 pawn, 7 any other character from the file).
+ * Every piece type's occupancy bitboard is a couple of ANDs of the planes, and the occupancy of the
+ * whole board is their OR.
+ * Pawns only capture upwards, so the one symmetry a board can have is swapping its left and right sides,
+ * and only when the characters that aren't pieces are placed the same on both sides.
+ */
+public class ChessPacking implements LayeredPuzzle, SymmetricPuzzle {
+    /** code for an empty square **/
+    static final int EMPTY = 0;
+    /** code for a character that isn't one of the six pieces **/
+    static final int OTHER = 7;
+    /** the character for every code **/
+    private static final char[] PIECES = {'.', 'K', 'Q', 'R', 'B', 'N', 'P'};
+
+    /** the move tables for this board size **/
+    private final ChessGeometry geometry;
+    /** the character every square had in the file, used for code OTHER **/
+    private final char[] original;
+    /** squares that started with a character that isn't a letter, those don't count as pieces **/
+    private final long[] notPieces;
+    /** longs in one plane **/
+    private final int words;
+    /** Zobrist key of every code on every square, 8 per square, 0 for an empty square **/
+    private final long[] zobrist;
+    /** where every square goes under each symmetry of the board, the identity first **/
+    private final int[][] symmetries;
+    /** occupancy of the state being expanded, per thread since ParallelSolver expands on several at once **/
+    private final ThreadLocal<long[]> occupancyScratch;
+
+    /**
+     * creates the packed rules for a board
+     * @param grid the starting board
+     */
+    public ChessPacking(Character[][] grid) {
+        int rows = grid.length;
+        int cols = rows == 0 ? 0 : grid[0].length;
+        this.geometry = ChessGeometry.of(rows, cols);
+        this.words = geometry.getWords();
+        this.original = new char[rows * cols];
+        this.notPieces = new long[words];
+        this.zobrist = Zobrist.table(8 * rows * cols, (long) rows << 32 | cols | 1L << 63);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int square = row * cols + col;
+                original[square] = grid[row][col];
+                if (codeOf(grid[row][col]) == OTHER && !Character.isLetter(grid[row][col])) {
+                    notPieces[square >>> 6] |= 1L << square;
+                }
+            }
+        }
+        int[] mirror = GridSymmetry.squareMap(GridSymmetry.MIRROR_COLUMNS, rows, cols);
+        boolean mirrored = true;
+        for (int square = 0; square < original.length && mirrored; square++) {
+            mirrored = codeOf(original[square]) != OTHER || original[mirror[square]] == original[square];
+        }
+        int[] identity = GridSymmetry.squareMap(GridSymmetry.IDENTITY, rows, cols);
+        this.symmetries = mirrored ? new int[][]{identity, mirror} : new int[][]{identity};
+        this.occupancyScratch = ThreadLocal.withInitial(() -> new long[words]);
+    }
+
+    /**
+     * @param piece a character from the board
+     * @return its 3 bit code
+     */
+    static int codeOf(char piece) {
+        for (int code = 0; code < PIECES.length; code++) {
+            if (PIECES[code] == piece) {
+                return code;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * @param code a code from a state
+     * @param square where it is
+     * @return the character it stands for
+     */
+    char charOf(int code, int square) {
+        return code == OTHER ? original[square] : PIECES[code];
+    }
+
+    /**
+     * @param square a square
+     * @param code the code of what is on it
+     * @return the Zobrist key of that code on that square, 0 if it is empty
+     */
+    long zobrist(int square, int code) {
+        return code == EMPTY ? 0L : zobrist[(square << 3) + code];
+    }
+
+    /**
+     * works out the Zobrist key of a whole board, configs then keep it up to date capture by capture
+     * @param grid the board
+     * @return the XOR of the keys of every piece on it
+     */
+    public long zobristKey(Character[][] grid) {
+        long key = 0L;
+        int cols = geometry.getCols();
+        for (int square = 0; square < geometry.getSquares(); square++) {
+            key ^= zobrist(square, codeOf(grid[square / cols][square % cols]));
+        }
+        return key;
+    }
+
+    /**
+     * packs a board of this puzzle
+     * @param grid the board
+     * @param dest the array to write to
+     * @param offset where the state starts in dest
+     */
+    public void encode(Character[][] grid, long[] dest, int offset) {
+        for (int i = 0; i < 3 * words; i++) {
+            dest[offset + i] = 0L;
+        }
+        int cols = geometry.getCols();
+        for (int square = 0; square < geometry.getSquares(); square++) {
+            setSquare(dest, offset, square, codeOf(grid[square / cols][square % cols]));
+        }
+    }
+
+    /**
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @param square a square
+     * @return the code on that square
+     */
+    int squareAt(long[] states, int offset, int square) {
+        int word = offset + (square >>> 6);
+        return (int) ((states[word] >>> square) & 1)
+                | (int) ((states[word + words] >>> square) & 1) << 1
+                | (int) ((states[word + 2 * words] >>> square) & 1) << 2;
+    }
+
+    /**
+     * sets a square of a state in place
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @param square a square
+     * @param code the code to put there
+     */
+    void setSquare(long[] states, int offset, int square, int code) {
+        int word = offset + (square >>> 6);
+        long bit = 1L << square;
+        for (int plane = 0; plane < 3; plane++) {
+            if ((code & (1 << plane)) != 0) {
+                states[word + plane * words] |= bit;
+            } else {
+                states[word + plane * words] &= ~bit;
+            }
+        }
+    }
+
+    /**
+     * writes the occupancy bitboard of a state, the OR of the three planes
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @param dest where to write the words longs of occupancy
+     */
+    void occupancy(long[] states, int offset, long[] dest) {
+        for (int word = 0; word < words; word++) {
+            dest[word] = states[offset + word] | states[offset + words + word] | states[offset + 2 * words + word];
+        }
+    }
+
+    /**
+     * counts the pieces on a board, the same way ChessConfig counts them from a file
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @return number of pieces
+     */
+    int countPieces(long[] states, int offset) {
+        int pieces = 0;
+        for (int word = 0; word < words; word++) {
+            long b0 = states[offset + word];
+            long b1 = states[offset + words + word];
+            long b2 = states[offset + 2 * words + word];
+            pieces += Long.bitCount((b0 | b1 | b2) & ~(b0 & b1 & b2 & notPieces[word]));
+        }
+        return pieces;
+    }
+
+    /**
+     * appends the board after one capture to out
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @param piece the code of the capturing piece
+     * @param from the square it moves from
+     * @param to the square it captures on
+     * @param out the buffer to append to
+     */
+    private void capture(long[] states, int offset, int piece, int from, int to, PackedBuffer out) {
+        int child = out.append(states, offset);
+        long[] array = out.array();
+        setSquare(array, child, from, EMPTY);
+        setSquare(array, child, to, piece);
+    }
+
+    /**
+     * tries the captures of a piece that moves one step
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @param occupied the occupancy bitboard
+     * @param piece the code of the piece
+     * @param square the square it is on
+     * @param targets the squares it attacks
+     * @param out the buffer to append to
+     */
+    private void stepCaptures(long[] states, int offset, long[] occupied, int piece, int square, int[] targets,
+                              PackedBuffer out) {
+        for (int target : targets) {
+            if ((occupied[target >>> 6] & (1L << target)) != 0) {
+                capture(states, offset, piece, square, target, out);
+            }
+        }
+    }
+
+    /**
+     * tries the captures of a sliding piece, one per ray at the first blocker
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @param occupied the occupancy bitboard
+     * @param piece the code of the piece
+     * @param square the square it is on
+     * @param directions the rays it slides along
+     * @param out the buffer to append to
+     */
+    private void slideCaptures(long[] states, int offset, long[] occupied, int piece, int square, int[] directions,
+                               PackedBuffer out) {
+        for (int direction : directions) {
+            int target = geometry.firstBlocker(occupied, 0, square, direction);
+            if (target >= 0) {
+                capture(states, offset, piece, square, target, out);
+            }
+        }
+    }
+
+    @Override
+    public int stateWidth() {
+        return 3 * words;
+    }
+
+    @Override
+    public int symmetryCount() {
+        return symmetries.length;
+    }
+
+    /**
+     * moves every piece to where the symmetry sends its square
+     */
+    @Override
+    public void transform(int symmetry, long[] src, int srcOffset, long[] dest, int destOffset) {
+        GridSymmetry.permute(symmetries[symmetry], 3, words, src, srcOffset, dest, destOffset);
+    }
+
+    /**
+     * solved when there is exactly one piece left
+     */
+    @Override
+    public boolean isSolution(long[] states, int offset) {
+        return countPieces(states, offset) == 1;
+    }
+
+    /**
+     * same captures, in the same order, as ChessConfig.getNeighbors
+     */
+    @Override
+    public void neighbors(long[] states, int offset, PackedBuffer out) {
+        long[] occupied = occupancyScratch.get();
+        occupancy(states, offset, occupied);
+        for (int word = 0; word < words; word++) {
+            long pieces = occupied[word];
+            while (pieces != 0) {
+                int square = (word << 6) + Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                int piece = squareAt(states, offset, square);
+                switch (piece) {
+                    case 1 -> stepCaptures(states, offset, occupied, piece, square, geometry.kingTargets(square), out);
+                    case 2 -> slideCaptures(states, offset, occupied, piece, square, ChessGeometry.QUEEN_RAYS, out);
+                    case 3 -> slideCaptures(states, offset, occupied, piece, square, ChessGeometry.ROOK_RAYS, out);
+                    case 4 -> slideCaptures(states, offset, occupied, piece, square, ChessGeometry.BISHOP_RAYS, out);
+                    case 5 -> stepCaptures(states, offset, occupied, piece, square, geometry.knightTargets(square), out);
+                    case 6 -> stepCaptures(states, offset, occupied, piece, square, geometry.pawnTargets(square), out);
+                    default -> { }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the unpacked state as a ChessBitboard
+     */
+    @Override
+    public Configuration unpack(long[] states, int offset) {
+        long[] state = new long[3 * words];
+        System.arraycopy(states, offset, state, 0, state.length);
+        return new ChessBitboard(this, state);
+    }
+
+    /**
+     * turns a state back into a grid
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @return the grid, like the one ChessConfig reads from a file
+     */
+    public Character[][] decode(long[] states, int offset) {
+        int cols = geometry.getCols();
+        Character[][] grid = new Character[geometry.getRows()][cols];
+        for (int square = 0; square < geometry.getSquares(); square++) {
+            grid[square / cols][square % cols] = charOf(squareAt(states, offset, square), square);
+        }
+        return grid;
+    }
+
+    /**
+     * @return the move tables for this board size
+     */
+    public ChessGeometry getGeometry() {
+        return geometry;
+    }
+}
@@ -0,0 +1,174 @@
+package puzzles.chess.model;
+
+import puzzles.common.solver.MutableBoard;
+import puzzles.common.solver.PackedPuzzle;
+
+/**
+ * One chess solitaire board whose bit planes are changed in place. A move packs the square the piece
+ * moves from, the square it captures on, and the codes of both pieces into one int, so unmaking it
+ * just puts both pieces back. The occupancy used to find captures is kept in one array that is
+ * rebuilt every time moves are generated.
+ */
+public class MutableChessBoard implements MutableBoard {
+    /** bits for a square in a move **/
+    private static final int SQUARE_BITS = 12;
+    /** mask for a square in a move **/
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+
+    /** the packed rules of the file this board came from **/
+    private final ChessPacking layout;
+    /** the move tables for this board size **/
+    private final ChessGeometry geometry;
+    /** the three bit planes **/
+    private final long[] state;
+    /** occupancy of the position moves were last generated for **/
+    private final long[] occupied;
+
+    /**
+     * starts from a grid based config
+     * @param config the config to start from
+     */
+    public MutableChessBoard(ChessConfig config) {
+        this.layout = (ChessPacking) config.getPackedPuzzle();
+        this.geometry = layout.getGeometry();
+        this.state = new long[layout.stateWidth()];
+        this.occupied = new long[geometry.getWords()];
+        config.pack(state, 0);
+    }
+
+    /**
+     * no piece attacks more than 8 squares
+     */
+    @Override
+    public int maxMoves() {
+        return Math.max(1, 8 * occupiedCount());
+    }
+
+    /**
+     * every capture takes a piece off the board
+     */
+    @Override
+    public int maxDepth() {
+        return Math.max(0, occupiedCount() - 1);
+    }
+
+    /**
+     * @return number of squares that aren't empty
+     */
+    private int occupiedCount() {
+        layout.occupancy(state, 0, occupied);
+        int count = 0;
+        for (long word : occupied) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * same captures, in the same order, as ChessPacking.neighbors
+     */
+    @Override
+    public int generateMoves(int[] moves, int offset) {
+        layout.occupancy(state, 0, occupied);
+        int count = 0;
+        for (int word = 0; word < occupied.length; word++) {
+            long pieces = occupied[word];
+            while (pieces != 0) {
+                int square = (word << 6) + Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                int piece = layout.squareAt(state, 0, square);
+                switch (piece) {
+                    case 1 -> count = stepMoves(piece, square, geometry.kingTargets(square), moves, offset, count);
+                    case 2 -> count = slideMoves(piece, square, ChessGeometry.QUEEN_RAYS, moves, offset, count);
+                    case 3 -> count = slideMoves(piece, square, ChessGeometry.ROOK_RAYS, moves, offset, count);
+                    case 4 -> count = slideMoves(piece, square, ChessGeometry.BISHOP_RAYS, moves, offset, count);
+                    case 5 -> count = stepMoves(piece, square, geometry.knightTargets(square), moves, offset, count);
+                    case 6 -> count = stepMoves(piece, square, geometry.pawnTargets(square), moves, offset, count);
+                    default -> { }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * writes the captures of a piece that moves one step
+     * @param piece the code of the piece
+     * @param square the square it is on
+     * @param targets the squares it attacks
+     * @param moves the buffer to write to
+     * @param offset where the moves of this position start
+     * @param count moves written so far
+     * @return moves written after this piece
+     */
+    private int stepMoves(int piece, int square, int[] targets, int[] moves, int offset, int count) {
+        for (int target : targets) {
+            if ((occupied[target >>> 6] & (1L << target)) != 0) {
+                moves[offset + count++] = encodeMove(piece, square, target);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * writes the captures of a sliding piece, one per ray at the first blocker
+     * @param piece the code of the piece
+     * @param square the square it is on
+     * @param directions the rays it slides along
+     * @param moves the buffer to write to
+     * @param offset where the moves of this position start
+     * @param count moves written so far
+     * @return moves written after this piece
+     */
+    private int slideMoves(int piece, int square, int[] directions, int[] moves, int offset, int count) {
+        for (int direction : directions) {
+            int target = geometry.firstBlocker(occupied, 0, square, direction);
+            if (target >= 0) {
+                moves[offset + count++] = encodeMove(piece, square, target);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param piece the code of the capturing piece
+     * @param from the square it moves from
+     * @param to the square it captures on
+     * @return the move as one int
+     */
+    private int encodeMove(int piece, int from, int to) {
+        int captured = layout.squareAt(state, 0, to);
+        return from | to << SQUARE_BITS | piece << (2 * SQUARE_BITS) | captured << (2 * SQUARE_BITS + 3);
+    }
+
+    @Override
+    public void make(int move) {
+        int from = move & SQUARE_MASK;
+        int to = (move >>> SQUARE_BITS) & SQUARE_MASK;
+        layout.setSquare(state, 0, from, ChessPacking.EMPTY);
+        layout.setSquare(state, 0, to, (move >>> (2 * SQUARE_BITS)) & 7);
+    }
+
+    @Override
+    public void unmake(int move) {
+        int from = move & SQUARE_MASK;
+        int to = (move >>> SQUARE_BITS) & SQUARE_MASK;
+        layout.setSquare(state, 0, to, (move >>> (2 * SQUARE_BITS + 3)) & 7);
+        layout.setSquare(state, 0, from, (move >>> (2 * SQUARE_BITS)) & 7);
+    }
+
+    @Override
+    public boolean isSolution() {
+        return layout.isSolution(state, 0);
+    }
+
+    @Override
+    public long[] state() {
+        return state;
+    }
+
+    @Override
+    public PackedPuzzle getPackedPuzzle() {
+        return layout;
+    }
+}
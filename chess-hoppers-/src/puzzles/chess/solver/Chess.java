@@ -2,7 +2,11 @@ package puzzles.chess.solver;
 
 import puzzles.chess.model.ChessConfig;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.CountingSolver;
+import puzzles.common.solver.LayeredSolver;
+import puzzles.common.solver.ParallelSolver;
+import puzzles.common.solver.SolutionStore;
+import puzzles.common.solver.SolveHandle;
 
 import java.io.IOException;
 import java.util.List;
@@ -16,16 +20,36 @@ import java.util.List;
  */
 public class Chess {
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            System.out.println("Usage: java Chess filename");
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java Chess filename [threads]");
         }
         else{
             String filename = args[0];
             System.out.println("File: "+args[0]);
 
             ChessConfig chessConfig = new ChessConfig(filename);
-            Solver solver = new Solver(chessConfig);
-            List<Configuration> pathList= solver.solve(chessConfig);
+            // a board solved before, by any run, is printed from the store
+            SolutionStore store = SolutionStore.openDefault();
+            SolveHandle.Result known = store == null ? null : store.get(chessConfig, true);
+            if (known != null) {
+                System.out.print(chessConfig.toString());
+                CountingSolver.printPathList(known.getPath(), known.getTotalConfigs(), known.getUniqueConfigs());
+                return;
+            }
+            CountingSolver solver;
+            List<Configuration> pathList;
+            if (args.length == 2) {
+                ParallelSolver parallelSolver = new ParallelSolver(chessConfig, Integer.parseInt(args[1]));
+                pathList = parallelSolver.solve(chessConfig);
+                solver = parallelSolver;
+            } else {
+                LayeredSolver layeredSolver = new LayeredSolver(chessConfig);
+                pathList = layeredSolver.solve(chessConfig);
+                solver = layeredSolver;
+            }
+            if (store != null) {
+                store.put(chessConfig, pathList, solver.getTotalConfigs(), solver.getUniqueConfigs(), true);
+            }
 
             // prints initial config, total & unique configs and the steps to get to solution
             System.out.print(chessConfig.toString());
@@ -0,0 +1,121 @@
+package puzzles.common.solver;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Depth first solver that walks the tree on one MutableBoard, making a move to go down and unmaking it
+ * to come back up. The moves of every depth sit in one int[] sized when the search starts and dead
+ * positions go in a PackedDeadStateCache, so after setup the search allocates nothing until it has
+ * found a solution and turns the path into Configurations.
+ * Tries moves in the same order as DepthFirstSolver and, given a dead state cache of the same capacity,
+ * counts configs the same way. Only for puzzles where every move removes a piece (LayeredPuzzle),
+ * since it keeps no record of the current path to catch cycles.
+ */
+public class BacktrackingSolver extends CountingSolver {
+    /** the board the search runs on, back at its starting position after every solve **/
+    private final MutableBoard board;
+    /** positions known to have no solution below them **/
+    private final PackedDeadStateCache deadStates;
+
+    /**
+     * creates a solver with a dead state cache of the default size
+     * @param board the board to search, its packed rules must be a LayeredPuzzle
+     */
+    public BacktrackingSolver(MutableBoard board) {
+        this(board, PackedDeadStateCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * creates a solver for a board
+     * @param board the board to search, its packed rules must be a LayeredPuzzle
+     * @param deadCapacity number of dead positions to remember
+     */
+    public BacktrackingSolver(MutableBoard board, int deadCapacity) {
+        if (!(board.getPackedPuzzle() instanceof LayeredPuzzle)) {
+            throw new IllegalArgumentException("puzzle can revisit states, use DepthFirstSolver");
+        }
+        this.totalConfigs = 0;
+        this.uniqueConfigs = 0;
+        this.board = board;
+        this.deadStates = new PackedDeadStateCache(board.getPackedPuzzle().stateWidth(), deadCapacity);
+    }
+
+    /**
+     * solves the puzzle from the board's current position
+     * @return a path from the current position to a solution, or an empty list if there is none
+     */
+    public List<Configuration> solve() {
+        totalConfigs++;
+        uniqueConfigs++;
+        if (board.isSolution()) {
+            return constructPath(new int[0], new int[0], 0, 0);
+        }
+        int maxMoves = board.maxMoves();
+        int maxDepth = board.maxDepth();
+        // moves[depth * maxMoves ..] are the moves of the position at that depth, next[depth] the one to try
+        int[] moves = new int[(maxDepth + 1) * maxMoves];
+        int[] count = new int[maxDepth + 1];
+        int[] next = new int[maxDepth + 1];
+
+        int depth = 0;
+        count[0] = board.generateMoves(moves, 0);
+        while (depth >= 0) {
+            if (next[depth] < count[depth]) {
+                int move = moves[depth * maxMoves + next[depth]++];
+                board.make(move);
+                totalConfigs++;
+                if (board.isSolution()) {
+                    return constructPath(moves, next, maxMoves, depth + 1);
+                }
+                if (deadStates.isDead(board.state(), 0)) {
+                    board.unmake(move);
+                    continue;
+                }
+                depth++;
+                uniqueConfigs++;
+                count[depth] = board.generateMoves(moves, depth * maxMoves);
+                next[depth] = 0;
+            } else {
+                deadStates.markDead(board.state(), 0);
+                depth--;
+                if (depth >= 0) {
+                    board.unmake(moves[depth * maxMoves + next[depth] - 1]);
+                }
+            }
+        }
+        return new LinkedList<>();
+    }
+
+    /**
+     * unpacks the current position, then unmakes the moves that led to it one at a time, unpacking each
+     * position on the way back. leaves the board where the search started
+     * @param moves the move buffer of the search
+     * @param next the next move to try at every depth
+     * @param maxMoves moves per depth in the buffer
+     * @param depth number of moves made
+     * @return the path from the starting position to the current one
+     */
+    private List<Configuration> constructPath(int[] moves, int[] next, int maxMoves, int depth) {
+        PackedPuzzle puzzle = board.getPackedPuzzle();
+        // the move taken at each depth is the one just before the next to try
+        int[] taken = new int[depth];
+        for (int i = 0; i < depth; i++) {
+            taken[i] = moves[i * maxMoves + next[i] - 1];
+        }
+        LinkedList<Configuration> path = new LinkedList<>();
+        path.addFirst(puzzle.unpack(board.state(), 0));
+        for (int i = depth - 1; i >= 0; i--) {
+            board.unmake(taken[i]);
+            path.addFirst(puzzle.unpack(board.state(), 0));
+        }
+        return path;
+    }
+
+    /**
+     * @return the cache of dead positions this solver uses
+     */
+    public PackedDeadStateCache getDeadStates() {
+        return deadStates;
+    }
+}
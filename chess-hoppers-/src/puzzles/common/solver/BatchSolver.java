@@ -0,0 +1,318 @@
+package puzzles.common.solver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Solves many puzzle files at once, one file per task on a fixed pool of threads. Every config keeps
+ * its board size and goal in the packed rules it shares with the configs of the same file, so puzzles
+ * of different sizes, or of different types, can be loaded and solved side by side in one program.
+ * Each file gets its own solver, picked by the batch's Engine. The default, breadthFirst, uses a
+ * LayeredSolver when every move removes a piece and a PackedSolver otherwise.
+ */
+public class BatchSolver {
+    /** number of files solved at the same time **/
+    private final int threads;
+    /** solves each file **/
+    private final Engine engine;
+
+    /**
+     * turns a file name into the config to start from, e.g. HoppersConfig::new
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * @param filename the puzzle file, or whatever else the loader knows how to turn into a puzzle
+         * @return the starting config
+         * @throws IOException if the file can't be read
+         */
+        PackedConfiguration load(String filename) throws IOException;
+    }
+
+    /**
+     * solves one puzzle on the calling thread with a solver of its choosing
+     */
+    @FunctionalInterface
+    public interface Engine {
+        /**
+         * @param config the starting config
+         * @return what was found, the batch fills in the file name and the time
+         */
+        Result solve(PackedConfiguration config);
+    }
+
+    /**
+     * what solving one file found
+     */
+    public static class Result {
+        /** the file that was solved **/
+        private final String filename;
+        /** the path to a solution, empty if there is none or the file couldn't be read **/
+        private final List<Configuration> path;
+        /** configs generated, including duplicates **/
+        private final int totalConfigs;
+        /** distinct configs seen **/
+        private final int uniqueConfigs;
+        /** most states waiting to be expanded at one time **/
+        private final int peakFrontier;
+        /** time spent loading and solving, in nanoseconds **/
+        private final long nanos;
+        /** why the file couldn't be solved, null if it was **/
+        private final Exception error;
+
+        /**
+         * @param filename the file that was solved
+         * @param path the path to a solution
+         * @param totalConfigs configs generated, including duplicates
+         * @param uniqueConfigs distinct configs seen
+         * @param peakFrontier most states waiting to be expanded at one time
+         * @param nanos time spent loading and solving
+         * @param error why the file couldn't be solved, null if it was
+         */
+        public Result(String filename, List<Configuration> path, int totalConfigs, int uniqueConfigs,
+                      int peakFrontier, long nanos, Exception error) {
+            this.filename = filename;
+            this.path = path;
+            this.totalConfigs = totalConfigs;
+            this.uniqueConfigs = uniqueConfigs;
+            this.peakFrontier = peakFrontier;
+            this.nanos = nanos;
+            this.error = error;
+        }
+
+        /**
+         * @return the file that was solved
+         */
+        public String getFilename() {
+            return filename;
+        }
+
+        /**
+         * @return the path to a solution, empty if there is none or the file couldn't be read
+         */
+        public List<Configuration> getPath() {
+            return path;
+        }
+
+        /**
+         * @return true if a solution was found
+         */
+        public boolean isSolvable() {
+            return !path.isEmpty();
+        }
+
+        /**
+         * @return configs generated, including duplicates
+         */
+        public int getTotalConfigs() {
+            return totalConfigs;
+        }
+
+        /**
+         * @return distinct configs seen
+         */
+        public int getUniqueConfigs() {
+            return uniqueConfigs;
+        }
+
+        /**
+         * @return number of moves in the solution, -1 if there is none
+         */
+        public int getPathLength() {
+            return path.size() - 1;
+        }
+
+        /**
+         * @return most states waiting to be expanded at one time
+         */
+        public int getPeakFrontier() {
+            return peakFrontier;
+        }
+
+        /**
+         * @return time spent loading and solving, in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return why the file couldn't be solved, null if it was
+         */
+        public Exception getError() {
+            return error;
+        }
+    }
+
+    /**
+     * creates a batch solver that solves breadth first
+     * @param threads number of files to solve at the same time, at least 1
+     */
+    public BatchSolver(int threads) {
+        this(threads, breadthFirst());
+    }
+
+    /**
+     * creates a batch solver
+     * @param threads number of files to solve at the same time, at least 1
+     * @param engine solves each file
+     */
+    public BatchSolver(int threads, Engine engine) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("need at least one thread: " + threads);
+        }
+        this.threads = threads;
+        this.engine = engine;
+    }
+
+    /**
+     * @return an engine that finds the same path as Solver, with a LayeredSolver when every move removes a
+     *         piece and a PackedSolver otherwise
+     */
+    public static Engine breadthFirst() {
+        return config -> {
+            if (config.getPackedPuzzle() instanceof LayeredPuzzle) {
+                LayeredSolver solver = new LayeredSolver(config);
+                List<Configuration> path = solver.solve(config);
+                return found(path, solver, solver.getWidestLayer());
+            }
+            PackedSolver solver = new PackedSolver(config);
+            List<Configuration> path = solver.solve(config);
+            return found(path, solver, solver.getPeakFrontier());
+        };
+    }
+
+    /**
+     * @return an engine that searches depth first with a DepthFirstSolver on the config as it was loaded,
+     *         keeping only the current path and the dead state cache, for puzzles where every solution has
+     *         the same length
+     */
+    public static Engine depthFirst() {
+        return config -> {
+            DepthFirstSolver solver = new DepthFirstSolver(config);
+            return found(solver.solve(config), solver, 0);
+        };
+    }
+
+    /**
+     * @return an engine that solves breadth first on the canonical form of every board, so a group of
+     *         symmetric twins is visited once, then turns the path back into moves on the real board.
+     *         puzzles without symmetries, and boards whose rotations and reflections found when they
+     *         were loaded are only the identity, are solved like breadthFirst does
+     */
+    public static Engine canonical() {
+        Engine plain = breadthFirst();
+        return config -> {
+            if (!(config.getPackedPuzzle() instanceof SymmetricPuzzle)
+                    || ((SymmetricPuzzle) config.getPackedPuzzle()).symmetryCount() < 2) {
+                return plain.solve(config);
+            }
+            CanonicalConfiguration canonical = new CanonicalConfiguration(config);
+            Result found = plain.solve(canonical);
+            return new Result(null, canonical.orient(found.getPath()), found.getTotalConfigs(),
+                    found.getUniqueConfigs(), found.getPeakFrontier(), 0, null);
+        };
+    }
+
+    /**
+     * @param path the path a solver found
+     * @param solver the solver, for its counts
+     * @param peakFrontier most states waiting to be expanded at one time
+     * @return the result of an engine, without file name or time
+     */
+    public static Result found(List<Configuration> path, CountingSolver solver, int peakFrontier) {
+        return new Result(null, path, solver.getTotalConfigs(), solver.getUniqueConfigs(), peakFrontier, 0, null);
+    }
+
+    /**
+     * solves every file
+     * @param filenames the files to solve
+     * @param loader reads a file into its starting config
+     * @return one result per file, in the same order as filenames
+     * @throws InterruptedException if interrupted while waiting for the files to be solved
+     */
+    public List<Result> solveAll(List<String> filenames, Loader loader) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(filenames.size());
+            for (String filename : filenames) {
+                futures.add(pool.submit(() -> solve(filename, loader, engine)));
+            }
+            List<Result> results = new ArrayList<>(futures.size());
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // solve catches what a file can throw, anything else is a bug
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * solves every file, handing each result over as soon as its file is done so nothing piles up
+     * @param filenames the files to solve
+     * @param loader reads a file into its starting config
+     * @param onResult called with every result in the order they finish, always on the calling thread
+     * @throws InterruptedException if interrupted while waiting for the files to be solved
+     */
+    public void solveAll(List<String> filenames, Loader loader, Consumer<Result> onResult)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<Result> done = new ExecutorCompletionService<>(pool);
+            for (String filename : filenames) {
+                done.submit(() -> solve(filename, loader, engine));
+            }
+            for (int i = 0; i < filenames.size(); i++) {
+                try {
+                    onResult.accept(done.take().get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * loads and solves one file on the calling thread, breadth first
+     * @param filename the file to solve
+     * @param loader reads the file into its starting config
+     * @return what was found
+     */
+    public static Result solve(String filename, Loader loader) {
+        return solve(filename, loader, breadthFirst());
+    }
+
+    /**
+     * loads and solves one file on the calling thread
+     * @param filename the file to solve
+     * @param loader reads the file into its starting config
+     * @param engine solves the file
+     * @return what was found
+     */
+    public static Result solve(String filename, Loader loader, Engine engine) {
+        long start = System.nanoTime();
+        try {
+            Result found = engine.solve(loader.load(filename));
+            return new Result(filename, found.getPath(), found.getTotalConfigs(), found.getUniqueConfigs(),
+                    found.getPeakFrontier(), System.nanoTime() - start, null);
+        } catch (IOException | RuntimeException e) {
+            return new Result(filename, List.of(), 0, 0, 0, System.nanoTime() - start, e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Breadth first search from both ends at once, for puzzles whose moves can be reversed and whose goal is
+ * known (ReversiblePuzzle). One table grows forwards from the start with neighbors, the other backwards
+ * from the goal with predecessors, and each round the side with the smaller frontier expands one whole
+ * layer. Once a layer turns up states the other side has seen, the one with the fewest moves through it
+ * is the middle of a shortest path, which is stitched together from both tables' parents.
+ * Each side only has to go about half as deep as a one sided search, so it visits far fewer states.
+ * totalConfigs counts the states generated by both sides plus the start and the goal, uniqueConfigs the
+ * states in both tables.
+ */
+public class BidirectionalSolver extends CountingSolver {
+    /** the config the search starts from **/
+    private final PackedConfiguration startingConfig;
+
+    /**
+     * creates a solver for a puzzle
+     * @param startingConfig the initial configuration, its packed rules must be a ReversiblePuzzle
+     */
+    public BidirectionalSolver(PackedConfiguration startingConfig) {
+        if (!(startingConfig.getPackedPuzzle() instanceof ReversiblePuzzle)) {
+            throw new IllegalArgumentException("puzzle can't be searched backwards, use PackedSolver");
+        }
+        this.totalConfigs = 0;
+        this.uniqueConfigs = 0;
+        this.startingConfig = startingConfig;
+    }
+
+    /**
+     * one direction of the search
+     */
+    private static class Side {
+        /** every state this side has seen, with the state it was reached from **/
+        private final PackedStateTable table;
+        /** where every layer starts in the table, the last one is the frontier **/
+        private final List<Integer> layers;
+        /** true if this side follows predecessors **/
+        private final boolean backwards;
+
+        /**
+         * @param width longs per state
+         * @param backwards true if this side follows predecessors
+         */
+        Side(int width, boolean backwards) {
+            this.table = new PackedStateTable(width);
+            this.layers = new ArrayList<>();
+            this.backwards = backwards;
+            layers.add(0);
+        }
+
+        /**
+         * @return number of states in the frontier
+         */
+        int frontier() {
+            return table.size() - layers.get(layers.size() - 1);
+        }
+
+        /**
+         * @param index a state number
+         * @return how many moves from this side's end the state is
+         */
+        int depth(int index) {
+            int layer = Collections.binarySearch(layers, index);
+            // a state that isn't the first of its layer is between two layer starts
+            return layer >= 0 ? layer : -layer - 2;
+        }
+    }
+
+    /**
+     * solves the puzzle from both ends
+     * @param start the configuration to start from
+     * @return a shortest path from start to the goal, or an empty list if there is none
+     */
+    public List<Configuration> solve(PackedConfiguration start) {
+        ReversiblePuzzle puzzle = (ReversiblePuzzle) start.getPackedPuzzle();
+        int width = puzzle.stateWidth();
+        PackedBuffer children = new PackedBuffer(width);
+        Side forward = new Side(width, false);
+        Side backward = new Side(width, true);
+
+        long[] packed = new long[width];
+        start.pack(packed, 0);
+        forward.table.add(packed, 0, PackedStateTable.NO_PARENT);
+        totalConfigs++;
+        uniqueConfigs++;
+        if (puzzle.isSolution(packed, 0)) {
+            return constructPath(puzzle, forward, 0, backward, -1);
+        }
+        if (!puzzle.packGoal(packed, 0)) {
+            return new LinkedList<>();
+        }
+        backward.table.add(packed, 0, PackedStateTable.NO_PARENT);
+        totalConfigs++;
+        uniqueConfigs++;
+
+        while (forward.frontier() > 0 && backward.frontier() > 0) {
+            Side side = forward.frontier() <= backward.frontier() ? forward : backward;
+            Side other = side == forward ? backward : forward;
+            int from = side.layers.get(side.layers.size() - 1);
+            int to = side.table.size();
+            int depth = side.layers.size();
+            side.layers.add(to);
+
+            int bestLength = Integer.MAX_VALUE;
+            int bestHere = -1;
+            int bestThere = -1;
+            for (int index = from; index < to; index++) {
+                children.clear();
+                if (side.backwards) {
+                    puzzle.predecessors(side.table.states(), side.table.offset(index), children);
+                } else {
+                    puzzle.neighbors(side.table.states(), side.table.offset(index), children);
+                }
+                for (int i = 0; i < children.size(); i++) {
+                    totalConfigs++;
+                    int added = side.table.add(children.array(), children.offset(i), index);
+                    if (added < 0) {
+                        continue;
+                    }
+                    uniqueConfigs++;
+                    int there = other.table.indexOf(children.array(), children.offset(i));
+                    if (there >= 0 && depth + other.depth(there) < bestLength) {
+                        bestLength = depth + other.depth(there);
+                        bestHere = added;
+                        bestThere = there;
+                    }
+                }
+            }
+            if (bestHere >= 0) {
+                return side == forward
+                        ? constructPath(puzzle, forward, bestHere, backward, bestThere)
+                        : constructPath(puzzle, forward, bestThere, backward, bestHere);
+            }
+        }
+        return new LinkedList<>();
+    }
+
+    /**
+     * follows the forward parents back to the start and the backward parents on to the goal
+     * @param puzzle the packed rules
+     * @param forward the side that started at the start
+     * @param meetForward the meeting state's number in the forward table
+     * @param backward the side that started at the goal
+     * @param meetBackward the meeting state's number in the backward table, -1 if the start is the goal
+     * @return the path from the start to the goal
+     */
+    private List<Configuration> constructPath(PackedPuzzle puzzle, Side forward, int meetForward, Side backward,
+                                              int meetBackward) {
+        LinkedList<Configuration> path = new LinkedList<>();
+        PackedStateTable table = forward.table;
+        for (int current = meetForward; current >= 0; current = table.parent(current)) {
+            path.addFirst(puzzle.unpack(table.states(), table.offset(current)));
+        }
+        table = backward.table;
+        // the meeting state is already on the path
+        int current = meetBackward < 0 ? -1 : table.parent(meetBackward);
+        for (; current >= 0; current = table.parent(current)) {
+            path.addLast(puzzle.unpack(table.states(), table.offset(current)));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,118 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Hands a board to the packed solvers with its symmetries reduced away. Looks like the wrapped config
+ * to everything else, but its packed rules are a CanonicalPuzzle and it packs to its canonical form.
+ * Solve it like any PackedConfiguration, then pass the path through orient to get the moves on the
+ * board the way the user sees it.
+ */
+public class CanonicalConfiguration implements PackedConfiguration {
+    /** the board in the user's orientation **/
+    private final PackedConfiguration config;
+    /** its rules, reduced by its symmetries **/
+    private final CanonicalPuzzle puzzle;
+
+    /**
+     * wraps a board whose packed rules have symmetries
+     * @param config the board, its getPackedPuzzle() must be a SymmetricPuzzle
+     */
+    public CanonicalConfiguration(PackedConfiguration config) {
+        if (!(config.getPackedPuzzle() instanceof SymmetricPuzzle)) {
+            throw new IllegalArgumentException("puzzle doesn't know its symmetries");
+        }
+        this.config = config;
+        this.puzzle = CanonicalPuzzle.of((SymmetricPuzzle) config.getPackedPuzzle());
+    }
+
+    /**
+     * turns a path of canonical states back into moves on the wrapped board. at every step it picks the
+     * neighbor of the real board whose canonical form is the next state on the path
+     * @param canonicalPath a path a solver found from this config
+     * @return the same path in the user's orientation, empty if canonicalPath is
+     */
+    public List<Configuration> orient(List<Configuration> canonicalPath) {
+        List<Configuration> path = new LinkedList<>();
+        if (canonicalPath.isEmpty()) {
+            return path;
+        }
+        SymmetricPuzzle rules = puzzle.getPuzzle();
+        int width = rules.stateWidth();
+        long[] state = new long[width];
+        long[] target = new long[width];
+        long[] twin = new long[width];
+        PackedBuffer neighbors = new PackedBuffer(width);
+        config.pack(state, 0);
+        path.add(rules.unpack(state, 0));
+        for (Configuration step : canonicalPath.subList(1, canonicalPath.size())) {
+            ((PackedConfiguration) step).pack(target, 0);
+            puzzle.canonicalize(target, 0);
+            neighbors.clear();
+            rules.neighbors(state, 0, neighbors);
+            boolean found = false;
+            for (int i = 0; i < neighbors.size() && !found; i++) {
+                System.arraycopy(neighbors.array(), neighbors.offset(i), twin, 0, width);
+                puzzle.canonicalize(twin, 0);
+                if (Arrays.equals(twin, target)) {
+                    System.arraycopy(neighbors.array(), neighbors.offset(i), state, 0, width);
+                    found = true;
+                }
+            }
+            if (!found) {
+                throw new IllegalArgumentException("path doesn't start at this config");
+            }
+            path.add(rules.unpack(state, 0));
+        }
+        return path;
+    }
+
+    /**
+     * @return the board in the user's orientation
+     */
+    public PackedConfiguration getConfig() {
+        return config;
+    }
+
+    @Override
+    public PackedPuzzle getPackedPuzzle() {
+        return puzzle;
+    }
+
+    /**
+     * packs the canonical form of the board
+     */
+    @Override
+    public void pack(long[] dest, int offset) {
+        config.pack(dest, offset);
+        puzzle.canonicalize(dest, offset);
+    }
+
+    @Override
+    public boolean isSolution() {
+        return config.isSolution();
+    }
+
+    @Override
+    public Collection<Configuration> getNeighbors() {
+        return config.getNeighbors();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CanonicalConfiguration && config.equals(((CanonicalConfiguration) other).config);
+    }
+
+    @Override
+    public int hashCode() {
+        return config.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return config.toString();
+    }
+}
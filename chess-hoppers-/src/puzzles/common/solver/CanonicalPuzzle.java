@@ -0,0 +1,119 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * Packed rules that only ever hand out one state of every group of symmetric twins. Every neighbor is
+ * replaced by its canonical form, the smallest of its twins compared word by word, so a solver's visited
+ * table sees every group of twins as one state and visits up to symmetryCount() times fewer states.
+ * How many it saves depends on the start more than the board: a symmetric start, or one that reaches
+ * symmetric positions as pieces come off, like hoppers-6, hoppers-9 and chess-6, visits half as many or
+ * fewer, while one that never reaches a twin of a state it visited, like chess-9, saves nothing and pays
+ * a transform per neighbor and symmetry. A board whose only symmetry is the identity is never reduced.
+ * A path found this way jumps between orientations, CanonicalConfiguration.orient turns it back into
+ * real moves from the user's board.
+ */
+public class CanonicalPuzzle implements PackedPuzzle {
+    /** the rules being reduced **/
+    private final SymmetricPuzzle puzzle;
+    /** a twin and the smallest twin so far, per thread since ParallelSolver expands on several at once **/
+    private final ThreadLocal<long[][]> scratch;
+
+    /**
+     * wraps rules that have symmetries
+     * @param puzzle the rules
+     */
+    protected CanonicalPuzzle(SymmetricPuzzle puzzle) {
+        this.puzzle = puzzle;
+        this.scratch = ThreadLocal.withInitial(() -> new long[2][puzzle.stateWidth()]);
+    }
+
+    /**
+     * wraps rules that have symmetries, keeping them a LayeredPuzzle if they are one
+     * @param puzzle the rules
+     * @return the reduced rules
+     */
+    public static CanonicalPuzzle of(SymmetricPuzzle puzzle) {
+        return puzzle instanceof LayeredPuzzle ? new Layered(puzzle) : new CanonicalPuzzle(puzzle);
+    }
+
+    /**
+     * the reduced rules of a LayeredPuzzle, twins have the same number of pieces so it still is one
+     */
+    private static class Layered extends CanonicalPuzzle implements LayeredPuzzle {
+        /**
+         * @param puzzle the rules
+         */
+        Layered(SymmetricPuzzle puzzle) {
+            super(puzzle);
+        }
+    }
+
+    /**
+     * replaces a state in place with the smallest of its twins
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     */
+    public void canonicalize(long[] states, int offset) {
+        int width = puzzle.stateWidth();
+        long[][] buffers = scratch.get();
+        long[] twin = buffers[0];
+        long[] best = buffers[1];
+        System.arraycopy(states, offset, best, 0, width);
+        for (int symmetry = 1; symmetry < puzzle.symmetryCount(); symmetry++) {
+            puzzle.transform(symmetry, states, offset, twin, 0);
+            if (Arrays.compare(twin, best) < 0) {
+                System.arraycopy(twin, 0, best, 0, width);
+            }
+        }
+        System.arraycopy(best, 0, states, offset, width);
+    }
+
+    /**
+     * @return true if the board's only symmetry is the identity, so every state already is its own
+     *         canonical form
+     */
+    public boolean isTrivial() {
+        return puzzle.symmetryCount() < 2;
+    }
+
+    /**
+     * @return the rules being reduced
+     */
+    public SymmetricPuzzle getPuzzle() {
+        return puzzle;
+    }
+
+    @Override
+    public int stateWidth() {
+        return puzzle.stateWidth();
+    }
+
+    /**
+     * twins of a solution are solutions
+     */
+    @Override
+    public boolean isSolution(long[] states, int offset) {
+        return puzzle.isSolution(states, offset);
+    }
+
+    /**
+     * the neighbors of the wrapped rules, each replaced by its canonical form
+     */
+    @Override
+    public void neighbors(long[] states, int offset, PackedBuffer out) {
+        int first = out.size();
+        puzzle.neighbors(states, offset, out);
+        if (isTrivial()) {
+            return;
+        }
+        for (int i = first; i < out.size(); i++) {
+            canonicalize(out.array(), out.offset(i));
+        }
+    }
+
+    @Override
+    public Configuration unpack(long[] states, int offset) {
+        return puzzle.unpack(states, offset);
+    }
+}
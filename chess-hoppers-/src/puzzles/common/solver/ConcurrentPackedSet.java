@@ -0,0 +1,110 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * A set of packed states that many threads can add to at once. The states are spread over shards by
+ * hash, each shard is a PackedStateTable guarded by its own lock, so threads only wait for each other
+ * when they hit the same shard.
+ * Every state carries a long sequence number. When the same state is added twice in the same round the
+ * smaller number wins, so which add "found" a state doesn't depend on thread timing. Sequence numbers
+ * keep the round in their top bits, states from earlier rounds are never touched.
+ */
+public class ConcurrentPackedSet {
+    /** bits of a sequence number below the round **/
+    public static final int ROUND_SHIFT = 47;
+
+    /** longs per state **/
+    private final int width;
+    /** shards, a power of two of them **/
+    private final PackedStateTable[] tables;
+    /** sequence number of every state, per shard **/
+    private final long[][] sequences;
+    /** states added to each shard since the last drain **/
+    private final int[][] fresh;
+    /** number of fresh states per shard **/
+    private final int[] freshCount;
+
+    /**
+     * creates an empty set
+     * @param width longs per state
+     * @param parallelism number of threads that will add at once
+     */
+    public ConcurrentPackedSet(int width, int parallelism) {
+        int shards = Integer.highestOneBit(Math.max(1, parallelism) * 16 - 1) << 1;
+        this.width = width;
+        this.tables = new PackedStateTable[shards];
+        this.sequences = new long[shards][];
+        this.fresh = new int[shards][];
+        this.freshCount = new int[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            tables[shard] = new PackedStateTable(width);
+            sequences[shard] = new long[64];
+            fresh[shard] = new int[64];
+        }
+    }
+
+    /**
+     * adds a state, or lowers the sequence number of a state added in the same round
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @param sequence the sequence number of this add
+     * @return true if the state wasn't in the set before
+     */
+    public boolean add(long[] src, int offset, long sequence) {
+        int hash = PackedStateTable.hash(src, offset, width);
+        // the tables use the low bits of the hash, the shard comes from the high ones
+        int shard = (hash >>> 20) & (tables.length - 1);
+        PackedStateTable table = tables[shard];
+        synchronized (table) {
+            int index = table.add(src, offset, PackedStateTable.NO_PARENT);
+            if (index >= 0) {
+                if (index >= sequences[shard].length) {
+                    sequences[shard] = Arrays.copyOf(sequences[shard], sequences[shard].length * 2);
+                }
+                sequences[shard][index] = sequence;
+                if (freshCount[shard] == fresh[shard].length) {
+                    fresh[shard] = Arrays.copyOf(fresh[shard], fresh[shard].length * 2);
+                }
+                fresh[shard][freshCount[shard]++] = index;
+                return true;
+            }
+            index = -index - 1;
+            long old = sequences[shard][index];
+            if ((old >>> ROUND_SHIFT) == (sequence >>> ROUND_SHIFT) && sequence < old) {
+                sequences[shard][index] = sequence;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return number of states added since the last drain
+     */
+    public int freshSize() {
+        int size = 0;
+        for (int count : freshCount) {
+            size += count;
+        }
+        return size;
+    }
+
+    /**
+     * copies out the states added since the last drain, with their sequence numbers, and forgets
+     * that they were fresh. only call it when no thread is adding
+     * @param states where to copy the states, freshSize() * width longs
+     * @param sequenceNumbers where to copy their sequence numbers, freshSize() longs
+     */
+    public void drain(long[] states, long[] sequenceNumbers) {
+        int out = 0;
+        for (int shard = 0; shard < tables.length; shard++) {
+            PackedStateTable table = tables[shard];
+            for (int i = 0; i < freshCount[shard]; i++) {
+                int index = fresh[shard][i];
+                System.arraycopy(table.states(), table.offset(index), states, out * width, width);
+                sequenceNumbers[out++] = sequences[shard][index];
+            }
+            freshCount[shard] = 0;
+        }
+    }
+}
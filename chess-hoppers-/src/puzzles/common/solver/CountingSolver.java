@@ -0,0 +1,74 @@
+package puzzles.common.solver;
+
+import java.util.List;
+
+/**
+ * Base class for the solvers that sit next to Solver. Keeps the same two counters Solver keeps and
+ * prints a path in the same format as Solver.printPathList, so every solver's output can be compared.
+ */
+public abstract class CountingSolver {
+    /** number of configs generated, including duplicates **/
+    protected int totalConfigs;
+    /** number of distinct configs seen **/
+    protected int uniqueConfigs;
+    /** where the breadth first solvers report their progress, see SolveEvents **/
+    protected final SolveEvents events = new SolveEvents(getClass().getSimpleName());
+    /** checked by the solvers that support it to find out when to give up, null to never give up **/
+    protected SolveGuard guard;
+
+    /**
+     * @param guard checked every SolveGuard.CHECK_INTERVAL expansions, null to never give up. A solve
+     *              the guard stops returns an empty path, the guard's stop reason says why
+     */
+    public void setGuard(SolveGuard guard) {
+        this.guard = guard;
+    }
+
+    /**
+     * @param listener told about the start, every layer and the end of each solve, null for nobody
+     */
+    public void setListener(SolveListener listener) {
+        events.setListener(listener);
+    }
+
+    /**
+     * prints the config counts and then every step of the path
+     * @param pathList the path to print
+     */
+    public void printPathList(List<Configuration> pathList) {
+        printPathList(pathList, totalConfigs, uniqueConfigs);
+    }
+
+    /**
+     * prints config counts and then every step of a path, for a path that wasn't solved just now
+     * @param pathList the path to print
+     * @param totalConfigs configs generated, including duplicates
+     * @param uniqueConfigs distinct configs seen
+     */
+    public static void printPathList(List<Configuration> pathList, int totalConfigs, int uniqueConfigs) {
+        System.out.println("Total configs: " + totalConfigs);
+        System.out.println("Unique configs: " + uniqueConfigs);
+        if (pathList.isEmpty()) {
+            System.out.println("No solution");
+        } else {
+            for (int i = 0; i < pathList.size(); i++) {
+                String step = pathList.get(i).toString();
+                System.out.println("Step " + i + ": \n" + step);
+            }
+        }
+    }
+
+    /**
+     * @return number of configs generated, including duplicates
+     */
+    public int getTotalConfigs() {
+        return totalConfigs;
+    }
+
+    /**
+     * @return number of distinct configs seen
+     */
+    public int getUniqueConfigs() {
+        return uniqueConfigs;
+    }
+}
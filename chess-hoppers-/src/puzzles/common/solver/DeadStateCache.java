@@ -0,0 +1,96 @@
+package puzzles.common.solver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded set of configurations that are known to have no solution below them.
+ * Lookups go through the configuration's hashCode and equals like any HashMap, so a hash collision can
+ * never make a solvable config look dead. Once it is full the config that was used longest ago is
+ * dropped, so the cache never holds more than its capacity no matter how big the search gets.
+ * All methods are synchronized, so one cache can be shared by solvers running on different threads.
+ */
+public class DeadStateCache {
+    /** default number of configs kept **/
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /** most configs kept at once **/
+    private final int capacity;
+    /** the dead configs, in least recently used order **/
+    private final LinkedHashMap<Configuration, Boolean> dead;
+    /** number of lookups that found a dead config **/
+    private long hits;
+
+    /**
+     * creates a cache that holds DEFAULT_CAPACITY configs
+     */
+    public DeadStateCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * creates an empty cache
+     * @param capacity most configs kept at once
+     */
+    public DeadStateCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.dead = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Configuration, Boolean> eldest) {
+                return size() > DeadStateCache.this.capacity;
+            }
+        };
+        this.hits = 0;
+    }
+
+    /**
+     * @param config a configuration
+     * @return true if it is known to have no solution below it
+     */
+    public synchronized boolean isDead(Configuration config) {
+        if (dead.get(config) != null) {
+            hits++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * remembers that a configuration has no solution below it
+     * @param config the configuration
+     */
+    public synchronized void markDead(Configuration config) {
+        dead.put(config, Boolean.TRUE);
+    }
+
+    /**
+     * forgets every config
+     */
+    public synchronized void clear() {
+        dead.clear();
+    }
+
+    /**
+     * @return number of configs held
+     */
+    public synchronized int size() {
+        return dead.size();
+    }
+
+    /**
+     * @return most configs kept at once
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of lookups that found a dead config
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+}
@@ -0,0 +1,138 @@
+package puzzles.common.solver;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Depth first solver over plain Configurations that stops at the first solution it generates.
+ * Meant for puzzles where every solution is as long as every other one, like Hoppers and Chess where
+ * a solution always takes pieces minus one moves, so going deep first loses nothing and only the
+ * current path has to be kept. Configs whose whole subtree failed go into a DeadStateCache and are
+ * never expanded again.
+ * Only looks for a path, it is shortest only when all solutions have the same length. Configs on the
+ * current path are skipped so puzzles with cycles still finish, a config that lost a child that way
+ * isn't cached since it might be solvable from another path.
+ * totalConfigs counts every config generated, uniqueConfigs every config expanded. Each expanded config
+ * is distinct as long as the cache is big enough to never drop one.
+ */
+public class DepthFirstSolver extends CountingSolver {
+    /** the config the search starts from **/
+    private final Configuration startingConfig;
+    /** configs known to have no solution below them, may be shared with other solvers **/
+    private final DeadStateCache deadStates;
+
+    /**
+     * creates a solver with a cache of its own
+     * @param startingConfig the initial configuration
+     */
+    public DepthFirstSolver(Configuration startingConfig) {
+        this(startingConfig, new DeadStateCache());
+    }
+
+    /**
+     * creates a solver for a puzzle
+     * @param startingConfig the initial configuration
+     * @param deadStates the cache of dead configs to read and fill
+     */
+    public DepthFirstSolver(Configuration startingConfig, DeadStateCache deadStates) {
+        this.totalConfigs = 0;
+        this.uniqueConfigs = 0;
+        this.startingConfig = startingConfig;
+        this.deadStates = deadStates;
+    }
+
+    /**
+     * one config on the current path and the neighbors of it that are still to try
+     */
+    private static class Frame {
+        /** the config **/
+        private final Configuration config;
+        /** its neighbors not tried yet **/
+        private final Iterator<Configuration> children;
+        /** whether a neighbor was skipped for being on the path **/
+        private boolean cut;
+
+        /**
+         * expands a config
+         * @param config the config
+         */
+        Frame(Configuration config) {
+            this.config = config;
+            this.children = config.getNeighbors().iterator();
+            this.cut = false;
+        }
+    }
+
+    /**
+     * solves the puzzle depth first
+     * @param start the configuration to start from
+     * @return a path from start to a solution, or an empty list if there is none
+     */
+    public List<Configuration> solve(Configuration start) {
+        totalConfigs++;
+        uniqueConfigs++;
+        if (start.isSolution()) {
+            List<Configuration> path = new LinkedList<>();
+            path.add(start);
+            return path;
+        }
+        // an explicit stack, the path can be longer than the call stack allows
+        ArrayDeque<Frame> stack = new ArrayDeque<>();
+        Set<Configuration> onPath = new HashSet<>();
+        stack.push(new Frame(start));
+        onPath.add(start);
+
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (frame.children.hasNext()) {
+                Configuration child = frame.children.next();
+                totalConfigs++;
+                if (child.isSolution()) {
+                    return constructPath(stack, child);
+                }
+                if (onPath.contains(child)) {
+                    frame.cut = true;
+                } else if (!deadStates.isDead(child)) {
+                    stack.push(new Frame(child));
+                    onPath.add(child);
+                    uniqueConfigs++;
+                }
+            } else {
+                stack.pop();
+                onPath.remove(frame.config);
+                if (!frame.cut) {
+                    deadStates.markDead(frame.config);
+                } else if (!stack.isEmpty()) {
+                    stack.peek().cut = true;
+                }
+            }
+        }
+        return new LinkedList<>();
+    }
+
+    /**
+     * @param stack the current path, the deepest config on top
+     * @param destination the solution found below it
+     * @return the path from the start to the destination
+     */
+    private List<Configuration> constructPath(ArrayDeque<Frame> stack, Configuration destination) {
+        List<Configuration> path = new LinkedList<>();
+        Iterator<Frame> fromStart = stack.descendingIterator();
+        while (fromStart.hasNext()) {
+            path.add(fromStart.next().config);
+        }
+        path.add(destination);
+        return path;
+    }
+
+    /**
+     * @return the cache of dead configs this solver uses
+     */
+    public DeadStateCache getDeadStates() {
+        return deadStates;
+    }
+}
@@ -0,0 +1,216 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The number of moves to a solution from every state reachable from a start, worked out once so a hint
+ * from anywhere the player goes is a lookup. Built in two passes over packed states: a breadth first
+ * pass forward from the start that keeps every state in a PackedStateTable and every move as an int
+ * edge, then a breadth first pass backward from the solutions along the reversed edges. A state the
+ * backward pass never reaches is dead.
+ * Solutions aren't expanded, so a state only reachable through a solution isn't in the map.
+ * Read only once built, so lookups are safe from any thread.
+ */
+public class DistanceMap {
+    /** distance of a state that has no solution below it **/
+    public static final int DEAD = -1;
+    /** distance of a state that isn't in the map **/
+    public static final int UNKNOWN = -2;
+
+    /** the packed rules of the puzzle **/
+    private final PackedPuzzle puzzle;
+    /** longs per state **/
+    private final int width;
+    /** every reachable state **/
+    private final PackedStateTable states;
+    /** the moves of state i are edges[edgeStarts[i] .. edgeStarts[i + 1]], in neighbor order **/
+    private final int[] edgeStarts;
+    /** the state every move leads to **/
+    private final int[] edges;
+    /** moves to a solution from every state, DEAD if there is none **/
+    private final int[] distances;
+    /** number of states with a solution below them **/
+    private final int solvableStates;
+
+    /**
+     * @param puzzle the packed rules of the puzzle
+     * @param states every reachable state
+     * @param edgeStarts where the moves of every state start in edges
+     * @param edges the state every move leads to
+     * @param distances moves to a solution from every state
+     * @param solvableStates number of states with a solution below them
+     */
+    private DistanceMap(PackedPuzzle puzzle, PackedStateTable states, int[] edgeStarts, int[] edges,
+                        int[] distances, int solvableStates) {
+        this.puzzle = puzzle;
+        this.width = puzzle.stateWidth();
+        this.states = states;
+        this.edgeStarts = edgeStarts;
+        this.edges = edges;
+        this.distances = distances;
+        this.solvableStates = solvableStates;
+    }
+
+    /**
+     * builds the map of everything reachable from a start
+     * @param start the config to start from
+     * @param guard the started guard that keeps the analysis small enough, checked every
+     *              SolveGuard.CHECK_INTERVAL moves
+     * @return the map, or null if the guard stopped the analysis first
+     */
+    public static DistanceMap analyze(PackedConfiguration start, SolveGuard guard) {
+        PackedPuzzle puzzle = start.getPackedPuzzle();
+        int width = puzzle.stateWidth();
+        PackedStateTable states = new PackedStateTable(width);
+        long[] packed = new long[width];
+        start.pack(packed, 0);
+        states.add(packed, 0, PackedStateTable.NO_PARENT);
+
+        // forward: the table is the queue, the moves of state i are added right after those of i - 1
+        PackedBuffer neighbors = new PackedBuffer(width);
+        int[] edgeStarts = new int[1024];
+        int[] edges = new int[4096];
+        int edgeCount = 0;
+        int depth = 0;
+        int layerEnd = 1;
+        for (int i = 0; i < states.size(); i++) {
+            if (i == layerEnd) {
+                depth++;
+                layerEnd = states.size();
+            }
+            if (i + 1 >= edgeStarts.length) {
+                edgeStarts = Arrays.copyOf(edgeStarts, edgeStarts.length * 2);
+            }
+            edgeStarts[i] = edgeCount;
+            if (puzzle.isSolution(states.states(), states.offset(i))) {
+                continue;
+            }
+            neighbors.clear();
+            puzzle.neighbors(states.states(), states.offset(i), neighbors);
+            if (edgeCount + neighbors.size() > edges.length) {
+                edges = Arrays.copyOf(edges, Math.max(edges.length * 2, edgeCount + neighbors.size()));
+            }
+            for (int n = 0; n < neighbors.size(); n++) {
+                int added = states.add(neighbors.array(), neighbors.offset(n), i);
+                edges[edgeCount++] = added >= 0 ? added : -added - 1;
+                if ((edgeCount & (SolveGuard.CHECK_INTERVAL - 1)) == 0
+                        && guard.shouldStop(depth, edgeCount, states.size())) {
+                    return null;
+                }
+            }
+        }
+        int size = states.size();
+        if (size >= edgeStarts.length) {
+            edgeStarts = Arrays.copyOf(edgeStarts, size + 1);
+        }
+        edgeStarts[size] = edgeCount;
+
+        // backward: the reversed edges grouped by the state they lead to
+        int[] reverseStarts = new int[size + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            reverseStarts[edges[e] + 1]++;
+        }
+        for (int s = 0; s < size; s++) {
+            reverseStarts[s + 1] += reverseStarts[s];
+        }
+        int[] fill = Arrays.copyOf(reverseStarts, size);
+        int[] reverse = new int[edgeCount];
+        for (int s = 0; s < size; s++) {
+            for (int e = edgeStarts[s]; e < edgeStarts[s + 1]; e++) {
+                reverse[fill[edges[e]]++] = s;
+            }
+        }
+
+        int[] distances = new int[size];
+        Arrays.fill(distances, DEAD);
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int s = 0; s < size; s++) {
+            if (puzzle.isSolution(states.states(), states.offset(s))) {
+                distances[s] = 0;
+                queue[tail++] = s;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int s = queue[head];
+            for (int e = reverseStarts[s]; e < reverseStarts[s + 1]; e++) {
+                int from = reverse[e];
+                if (distances[from] == DEAD) {
+                    distances[from] = distances[s] + 1;
+                    queue[tail++] = from;
+                }
+            }
+        }
+        return new DistanceMap(puzzle, states, Arrays.copyOf(edgeStarts, size + 1),
+                Arrays.copyOf(edges, edgeCount), distances, tail);
+    }
+
+    /**
+     * @return the packed rules the map is for
+     */
+    public PackedPuzzle getPuzzle() {
+        return puzzle;
+    }
+
+    /**
+     * @param board a board of this map's puzzle
+     * @return moves from the board to the nearest solution, DEAD if there is none, UNKNOWN if the
+     *         board isn't reachable from the start the map was built from
+     */
+    public int distance(PackedConfiguration board) {
+        int index = indexOf(board);
+        return index < 0 ? UNKNOWN : distances[index];
+    }
+
+    /**
+     * a shortest path from a board to a solution, the first one in neighbor order
+     * @param board a board of this map's puzzle
+     * @return the path from the board to a solution, empty if it is dead, null if it is UNKNOWN
+     */
+    public List<Configuration> path(PackedConfiguration board) {
+        int index = indexOf(board);
+        if (index < 0) {
+            return null;
+        }
+        List<Configuration> path = new LinkedList<>();
+        if (distances[index] == DEAD) {
+            return path;
+        }
+        path.add(puzzle.unpack(states.states(), states.offset(index)));
+        while (distances[index] > 0) {
+            int e = edgeStarts[index];
+            while (distances[edges[e]] != distances[index] - 1) {
+                e++;
+            }
+            index = edges[e];
+            path.add(puzzle.unpack(states.states(), states.offset(index)));
+        }
+        return path;
+    }
+
+    /**
+     * @return number of states reachable from the start
+     */
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * @return number of reachable states with a solution below them
+     */
+    public int getSolvableStates() {
+        return solvableStates;
+    }
+
+    /**
+     * @param board a board of this map's puzzle
+     * @return the board's index in the table, -1 if it isn't there
+     */
+    private int indexOf(PackedConfiguration board) {
+        long[] packed = new long[width];
+        board.pack(packed, 0);
+        return states.indexOf(packed, 0);
+    }
+}
@@ -0,0 +1,644 @@
+package puzzles.common.solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Breadth first solver for state spaces bigger than memory. Every layer lives in files: once in the
+ * order Solver would visit it, every state with the index of its parent in the layer before, and once
+ * sorted with no duplicates for finding duplicates later.
+ * Expanding a layer streams its states from disk and collects their neighbors in sorted runs of at most
+ * runStates states, the only states held in memory. The runs are then merged, and every neighbor is
+ * checked against the sorted files of all earlier layers as it streams by, dropping the states already
+ * seen. Of a state reached more than once in the layer the copy reached first is kept, and the new
+ * layer is sorted back into that order, so the search visits states in the same order as Solver and
+ * finds the same path with the same counts.
+ * The path is read back through the layer files with positioned reads, one record per layer.
+ */
+public class ExternalSolver extends CountingSolver {
+    /** default number of states collected in memory before they are sorted and written out **/
+    public static final int DEFAULT_RUN_STATES = 1 << 20;
+    /** bytes of the buffers of the layer and run files **/
+    private static final int IO_BUFFER = 1 << 16;
+    /** most runs merged at once, a merge keeps every run it reads open **/
+    private static final int MAX_FAN_IN = 64;
+
+    /** the config the search starts from **/
+    private final PackedConfiguration startingConfig;
+    /** where the directory of layer files of a solve is made **/
+    private final Path directory;
+    /** most states held in memory at once **/
+    private final int runStates;
+    /** most states in one layer **/
+    private int widestLayer;
+
+    /**
+     * creates a solver for a puzzle
+     * @param startingConfig the initial configuration
+     * @param directory where to keep the layer files, each solve makes and removes its own directory in it
+     * @param runStates most states to hold in memory at once, at least 1
+     */
+    public ExternalSolver(PackedConfiguration startingConfig, Path directory, int runStates) {
+        if (runStates < 1) {
+            throw new IllegalArgumentException("need room for at least one state: " + runStates);
+        }
+        this.totalConfigs = 0;
+        this.uniqueConfigs = 0;
+        this.startingConfig = startingConfig;
+        this.directory = directory;
+        this.runStates = runStates;
+    }
+
+    /**
+     * solves the puzzle one layer at a time, keeping the layers on disk
+     * @param start the configuration to start from
+     * @return the shortest path from start to a solution, or an empty list if there is none
+     * @throws UncheckedIOException if the layer files can't be written or read
+     */
+    public List<Configuration> solve(PackedConfiguration start) {
+        Path work = null;
+        try {
+            work = Files.createTempDirectory(directory, "layers-");
+            return search(start, work);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (work != null) {
+                delete(work);
+            }
+        }
+    }
+
+    /**
+     * @return the most states that were in one layer
+     */
+    public int getWidestLayer() {
+        return widestLayer;
+    }
+
+    /**
+     * the breadth first search itself
+     * @param start the configuration to start from
+     * @param work the directory for this solve's files
+     * @return the shortest path from start to a solution, or an empty list if there is none
+     * @throws IOException if the files can't be written or read
+     */
+    private List<Configuration> search(PackedConfiguration start, Path work) throws IOException {
+        PackedPuzzle puzzle = start.getPackedPuzzle();
+        int width = puzzle.stateWidth();
+        // a record is the state and then its key, the parent index in the high half and the move in the low
+        long[] record = new long[width + 1];
+        start.pack(record, 0);
+        record[width] = key(PackedStateTable.NO_PARENT, 0);
+        try (DataOutputStream out = writer(layerFile(work, 0));
+             DataOutputStream sortedOut = writer(sortedFile(work, 0))) {
+            write(out, record, 0, width + 1);
+            write(sortedOut, record, 0, width);
+        }
+        List<Path> sorted = new ArrayList<>();
+        sorted.add(sortedFile(work, 0));
+        totalConfigs++;
+        uniqueConfigs++;
+        events.started(totalConfigs, uniqueConfigs);
+
+        PackedBuffer neighbors = new PackedBuffer(width);
+        long expanded = 0;
+        int layerSize = 1;
+        int depth = 0;
+        while (layerSize > 0) {
+            widestLayer = Math.max(widestLayer, layerSize);
+            Runs next = new Runs(work, "next", width + 1, runStates, 0);
+            try (RecordReader layer = new RecordReader(layerFile(work, depth), width + 1)) {
+                for (int index = 0; layer.next(); index++) {
+                    if (guard != null && (expanded++ & (SolveGuard.CHECK_INTERVAL - 1)) == 0
+                            && guard.shouldStop(depth, expanded, uniqueConfigs)) {
+                        next.delete();
+                        events.layerDone(depth, index, totalConfigs, uniqueConfigs);
+                        return events.ended(new LinkedList<>(), totalConfigs, uniqueConfigs);
+                    }
+                    if (puzzle.isSolution(layer.current(), 0)) {
+                        // Solver has already put the neighbors made so far in its visited set, count them the same
+                        uniqueConfigs += removeDuplicates(next, sorted, work, null, null);
+                        events.layerDone(depth, index, totalConfigs, uniqueConfigs);
+                        return events.ended(path(puzzle, work, depth, index), totalConfigs, uniqueConfigs);
+                    }
+                    neighbors.clear();
+                    puzzle.neighbors(layer.current(), 0, neighbors);
+                    for (int i = 0; i < neighbors.size(); i++) {
+                        totalConfigs++;
+                        next.add(neighbors.array(), neighbors.offset(i), width, key(index, i));
+                    }
+                }
+            }
+            events.layerDone(depth, layerSize, totalConfigs, uniqueConfigs);
+            layerSize = removeDuplicates(next, sorted, work, sortedFile(work, depth + 1), layerFile(work, depth + 1));
+            uniqueConfigs += layerSize;
+            sorted.add(sortedFile(work, depth + 1));
+            depth++;
+        }
+        return events.ended(new LinkedList<>(), totalConfigs, uniqueConfigs);
+    }
+
+    /**
+     * merges the sorted runs of a new layer, drops the states seen in earlier layers and the later copies
+     * of states reached more than once, and writes what is left out as the next layer
+     * @param next the runs of the new layer, sorted by state and then by key, deleted when done
+     * @param sorted the sorted state files of every earlier layer
+     * @param work the directory for this solve's files
+     * @param sortedOut where to write the new layer's states in sorted order, null to only count them
+     * @param layerOut where to write the new layer in visiting order, null to only count it
+     * @return the number of new states
+     * @throws IOException if the files can't be written or read
+     */
+    private int removeDuplicates(Runs next, List<Path> sorted, Path work, Path sortedOut, Path layerOut)
+            throws IOException {
+        int recordWidth = next.recordWidth;
+        int width = recordWidth - 1;
+        Runs byKey = new Runs(work, "order", recordWidth, runStates, width);
+        List<RecordReader> earlier = new ArrayList<>();
+        int count = 0;
+        try (Merge merge = new Merge(next.finish(), recordWidth, 0);
+             DataOutputStream out = sortedOut == null ? null : writer(sortedOut)) {
+            for (Path file : sorted) {
+                earlier.add(new RecordReader(file, width));
+            }
+            for (RecordReader reader : earlier) {
+                reader.next();
+            }
+            long[] last = null;
+            while (merge.next()) {
+                long[] record = merge.current();
+                // the copy reached first sorts first, skip the rest
+                if (last != null && compare(last, 0, record, 0, width, 0) == 0) {
+                    continue;
+                }
+                if (last == null) {
+                    last = new long[width];
+                }
+                System.arraycopy(record, 0, last, 0, width);
+                if (seenBefore(earlier, record, width)) {
+                    continue;
+                }
+                count++;
+                if (out != null) {
+                    write(out, record, 0, width);
+                    byKey.add(record, 0, width, record[width]);
+                }
+            }
+        } finally {
+            for (RecordReader reader : earlier) {
+                reader.close();
+            }
+            next.delete();
+        }
+        if (layerOut != null) {
+            // back into the order Solver would have found them in
+            try (Merge merge = new Merge(byKey.finish(), recordWidth, width);
+                 DataOutputStream out = writer(layerOut)) {
+                while (merge.next()) {
+                    write(out, merge.current(), 0, recordWidth);
+                }
+            }
+        }
+        byKey.delete();
+        return count;
+    }
+
+    /**
+     * moves every earlier layer's reader up to a state, they only ever move forward since the states
+     * come in sorted order
+     * @param earlier a reader for the sorted file of every earlier layer, each on its next state
+     * @param state the state to look for
+     * @param width longs per state
+     * @return true if the state is in an earlier layer
+     */
+    private static boolean seenBefore(List<RecordReader> earlier, long[] state, int width) throws IOException {
+        boolean seen = false;
+        for (RecordReader reader : earlier) {
+            while (reader.hasCurrent() && compare(reader.current(), 0, state, 0, width, 0) < 0) {
+                reader.next();
+            }
+            if (reader.hasCurrent() && compare(reader.current(), 0, state, 0, width, 0) == 0) {
+                seen = true;
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * follows the parent indices back through the layer files from the destination
+     * @param puzzle the packed rules
+     * @param work the directory for this solve's files
+     * @param depth the layer the destination is in
+     * @param destination the index of the destination in its layer
+     * @return the path from the start to the destination
+     * @throws IOException if the layer files can't be read
+     */
+    private static List<Configuration> path(PackedPuzzle puzzle, Path work, int depth, int destination)
+            throws IOException {
+        int width = puzzle.stateWidth();
+        long[] record = new long[width + 1];
+        ByteBuffer buffer = ByteBuffer.allocate(record.length * Long.BYTES);
+        List<Configuration> path = new LinkedList<>();
+        int index = destination;
+        for (int layer = depth; layer >= 0; layer--) {
+            try (FileChannel channel = FileChannel.open(layerFile(work, layer), StandardOpenOption.READ)) {
+                buffer.clear();
+                long position = (long) index * buffer.capacity();
+                while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+                    // keep reading until the whole record is in
+                }
+                buffer.flip();
+                for (int i = 0; i < record.length; i++) {
+                    record[i] = buffer.getLong();
+                }
+            }
+            path.add(0, puzzle.unpack(record, 0));
+            index = (int) (record[width] >> 32);
+        }
+        return path;
+    }
+
+    /**
+     * @param parent index of the parent in its layer
+     * @param move which of the parent's neighbors the state is
+     * @return the key, the order of the keys is the order Solver finds states in
+     */
+    private static long key(int parent, int move) {
+        return ((long) parent << 32) | move;
+    }
+
+    /**
+     * compares two records a long at a time, starting at one of the longs and wrapping around
+     * @param a the array holding the first record
+     * @param aOffset where the first record starts
+     * @param b the array holding the second record
+     * @param bOffset where the second record starts
+     * @param width longs to compare
+     * @param first the long to start comparing at
+     * @return negative, zero or positive as the first record sorts before, with or after the second
+     */
+    private static int compare(long[] a, int aOffset, long[] b, int bOffset, int width, int first) {
+        for (int i = 0; i < width; i++) {
+            int field = first + i < width ? first + i : first + i - width;
+            int c = Long.compare(a[aOffset + field], b[bOffset + field]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param work the directory for this solve's files
+     * @param depth a layer
+     * @return the file of the layer's records in visiting order
+     */
+    private static Path layerFile(Path work, int depth) {
+        return work.resolve("layer-" + depth);
+    }
+
+    /**
+     * @param work the directory for this solve's files
+     * @param depth a layer
+     * @return the file of the layer's states in sorted order
+     */
+    private static Path sortedFile(Path work, int depth) {
+        return work.resolve("sorted-" + depth);
+    }
+
+    /**
+     * @param file the file to write, replaced if it is there
+     * @return a buffered stream to it
+     * @throws IOException if it can't be opened
+     */
+    private static DataOutputStream writer(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER));
+    }
+
+    /**
+     * @param out the stream to write to
+     * @param src the array holding the longs
+     * @param offset where they start in src
+     * @param length number of longs to write
+     * @throws IOException if they can't be written
+     */
+    private static void write(DataOutputStream out, long[] src, int offset, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            out.writeLong(src[offset + i]);
+        }
+    }
+
+    /**
+     * removes a directory and everything in it, as far as it can
+     * @param directory the directory
+     */
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            // nothing more to do about it, the files are in a temporary directory
+        }
+    }
+
+    /**
+     * Records collected in memory and written out as sorted runs whenever runStates of them are in.
+     */
+    private static class Runs {
+        /** the directory the runs go in **/
+        private final Path work;
+        /** starts the names of the run files **/
+        private final String name;
+        /** longs per record **/
+        private final int recordWidth;
+        /** the long of the record the sort starts comparing at **/
+        private final int first;
+        /** the records not written yet, grows up to capacity so small layers stay small **/
+        private long[] records;
+        /** most records held **/
+        private final int capacity;
+        /** records held **/
+        private int count;
+        /** the runs written so far **/
+        private List<Path> files;
+        /** number of run files made, names the next one **/
+        private int made;
+
+        /**
+         * @param work the directory the runs go in
+         * @param name starts the names of the run files
+         * @param recordWidth longs per record
+         * @param capacity most records held before they are written out
+         * @param first the long of a record the sort starts comparing at
+         */
+        Runs(Path work, String name, int recordWidth, int capacity, int first) {
+            this.work = work;
+            this.name = name;
+            this.recordWidth = recordWidth;
+            this.first = first;
+            this.capacity = capacity;
+            this.records = new long[Math.min(capacity, 1024) * recordWidth];
+            this.files = new ArrayList<>();
+        }
+
+        /**
+         * adds a record, writing out a run first if the buffer is full
+         * @param src the array holding the state
+         * @param offset where the state starts in src
+         * @param width longs per state
+         * @param key the key to store after the state
+         * @throws IOException if a run can't be written
+         */
+        void add(long[] src, int offset, int width, long key) throws IOException {
+            if (count == capacity) {
+                spill();
+            }
+            if ((count + 1) * recordWidth > records.length) {
+                records = Arrays.copyOf(records, Math.min(records.length * 2, capacity * recordWidth));
+            }
+            int start = count * recordWidth;
+            System.arraycopy(src, offset, records, start, width);
+            records[start + width] = key;
+            count++;
+        }
+
+        /**
+         * writes out what is left
+         * @return every run
+         * @throws IOException if a run can't be written
+         */
+        List<Path> finish() throws IOException {
+            if (count > 0) {
+                spill();
+            }
+            // merge groups of runs into longer ones until they can all be merged at once
+            while (files.size() > MAX_FAN_IN) {
+                List<Path> merged = new ArrayList<>();
+                for (int from = 0; from < files.size(); from += MAX_FAN_IN) {
+                    List<Path> group = files.subList(from, Math.min(from + MAX_FAN_IN, files.size()));
+                    Path file = nextFile();
+                    try (Merge merge = new Merge(group, recordWidth, first);
+                         DataOutputStream out = writer(file)) {
+                        while (merge.next()) {
+                            write(out, merge.current(), 0, recordWidth);
+                        }
+                    }
+                    for (Path run : group) {
+                        run.toFile().delete();
+                    }
+                    merged.add(file);
+                }
+                files = merged;
+            }
+            return files;
+        }
+
+        /**
+         * @return a new file name for a run
+         */
+        private Path nextFile() {
+            return work.resolve(name + "-" + made++);
+        }
+
+        /**
+         * removes every run
+         */
+        void delete() {
+            for (Path file : files) {
+                file.toFile().delete();
+            }
+            files.clear();
+        }
+
+        /**
+         * sorts the records held and writes them out as one run
+         * @throws IOException if the run can't be written
+         */
+        private void spill() throws IOException {
+            int[] order = sort(records, count, recordWidth, first);
+            Path file = nextFile();
+            try (DataOutputStream out = writer(file)) {
+                for (int i = 0; i < count; i++) {
+                    write(out, records, order[i] * recordWidth, recordWidth);
+                }
+            }
+            files.add(file);
+            count = 0;
+        }
+
+        /**
+         * merge sorts the record numbers by the records, so the records themselves never move
+         * @param records the records back to back
+         * @param count number of records
+         * @param width longs per record
+         * @param first the long to start comparing at
+         * @return the record numbers in sorted order
+         */
+        private static int[] sort(long[] records, int count, int width, int first) {
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            int[] scratch = new int[count];
+            for (int run = 1; run < count; run *= 2) {
+                for (int low = 0; low < count - run; low += 2 * run) {
+                    int middle = low + run;
+                    int high = Math.min(low + 2 * run, count);
+                    int left = low;
+                    int right = middle;
+                    int to = low;
+                    while (left < middle && right < high) {
+                        if (compare(records, order[right] * width, records, order[left] * width, width, first) < 0) {
+                            scratch[to++] = order[right++];
+                        } else {
+                            scratch[to++] = order[left++];
+                        }
+                    }
+                    while (left < middle) {
+                        scratch[to++] = order[left++];
+                    }
+                    while (right < high) {
+                        scratch[to++] = order[right++];
+                    }
+                    System.arraycopy(scratch, low, order, low, high - low);
+                }
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Reads a file of fixed size records one at a time, front to back.
+     */
+    private static class RecordReader implements Closeable {
+        /** the file **/
+        private final DataInputStream in;
+        /** the record last read **/
+        private final long[] current;
+        /** records not read yet **/
+        private long remaining;
+        /** whether current holds a record **/
+        private boolean hasCurrent;
+
+        /**
+         * @param file the file to read
+         * @param recordWidth longs per record
+         * @throws IOException if it can't be opened
+         */
+        RecordReader(Path file, int recordWidth) throws IOException {
+            this.remaining = Files.size(file) / ((long) recordWidth * Long.BYTES);
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), IO_BUFFER));
+            this.current = new long[recordWidth];
+        }
+
+        /**
+         * reads the next record into current
+         * @return false if there are no more records
+         * @throws IOException if the file can't be read
+         */
+        boolean next() throws IOException {
+            hasCurrent = remaining > 0;
+            if (hasCurrent) {
+                for (int i = 0; i < current.length; i++) {
+                    current[i] = in.readLong();
+                }
+                remaining--;
+            }
+            return hasCurrent;
+        }
+
+        /**
+         * @return true if the last next found a record
+         */
+        boolean hasCurrent() {
+            return hasCurrent;
+        }
+
+        /**
+         * @return the record last read, overwritten by the next one
+         */
+        long[] current() {
+            return current;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Merges sorted runs into one sorted stream of records.
+     */
+    private static class Merge implements Closeable {
+        /** the runs that still have records, the one with the smallest current record first **/
+        private final PriorityQueue<RecordReader> heads;
+        /** every run **/
+        private final List<RecordReader> readers;
+        /** the run current() came from, moved on by the next call **/
+        private RecordReader last;
+
+        /**
+         * @param files the runs, each sorted
+         * @param recordWidth longs per record
+         * @param first the long the runs were sorted starting at
+         * @throws IOException if a run can't be read
+         */
+        Merge(List<Path> files, int recordWidth, int first) throws IOException {
+            this.heads = new PriorityQueue<>(Math.max(1, files.size()),
+                    (a, b) -> compare(a.current(), 0, b.current(), 0, recordWidth, first));
+            this.readers = new ArrayList<>();
+            for (Path file : files) {
+                RecordReader reader = new RecordReader(file, recordWidth);
+                readers.add(reader);
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+        }
+
+        /**
+         * moves on to the next record
+         * @return false if every run is used up
+         * @throws IOException if a run can't be read
+         */
+        boolean next() throws IOException {
+            if (last != null && last.next()) {
+                heads.add(last);
+            }
+            last = heads.poll();
+            return last != null;
+        }
+
+        /**
+         * @return the current record, overwritten by the next call to next
+         */
+        long[] current() {
+            return last.current();
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RecordReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+}
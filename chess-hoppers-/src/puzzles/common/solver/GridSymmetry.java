@@ -0,0 +1,83 @@
+package puzzles.common.solver;
+
+/**
+ * The rotations and reflections of a rows x columns grid, for boards working out which of them they
+ * have. Squares are numbered row * columns + column.
+ */
+public class GridSymmetry {
+    /** leaves every square where it is **/
+    public static final int IDENTITY = 0;
+    /** turns the grid half way round **/
+    public static final int ROTATE_180 = 1;
+    /** swaps the left and right sides **/
+    public static final int MIRROR_COLUMNS = 2;
+    /** swaps the top and bottom **/
+    public static final int MIRROR_ROWS = 3;
+    /** reflects over the main diagonal, square grids only **/
+    public static final int TRANSPOSE = 4;
+    /** reflects over the other diagonal, square grids only **/
+    public static final int ANTI_TRANSPOSE = 5;
+    /** turns the grid a quarter clockwise, square grids only **/
+    public static final int ROTATE_90 = 6;
+    /** turns the grid a quarter counterclockwise, square grids only **/
+    public static final int ROTATE_270 = 7;
+    /** number of symmetries a square has **/
+    public static final int COUNT = 8;
+
+    /**
+     * @param symmetry one of the constants above
+     * @param rows rows of the grid
+     * @param columns columns of the grid
+     * @return where every square goes, or null if the symmetry doesn't fit a grid of that shape
+     */
+    public static int[] squareMap(int symmetry, int rows, int columns) {
+        if (symmetry >= TRANSPOSE && rows != columns) {
+            return null;
+        }
+        int[] map = new int[rows * columns];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                int[] image = switch (symmetry) {
+                    case IDENTITY -> new int[]{row, col};
+                    case ROTATE_180 -> new int[]{rows - 1 - row, columns - 1 - col};
+                    case MIRROR_COLUMNS -> new int[]{row, columns - 1 - col};
+                    case MIRROR_ROWS -> new int[]{rows - 1 - row, col};
+                    case TRANSPOSE -> new int[]{col, row};
+                    case ANTI_TRANSPOSE -> new int[]{columns - 1 - col, rows - 1 - row};
+                    case ROTATE_90 -> new int[]{col, rows - 1 - row};
+                    case ROTATE_270 -> new int[]{columns - 1 - col, row};
+                    default -> throw new IllegalArgumentException("no symmetry " + symmetry);
+                };
+                map[row * columns + col] = image[0] * columns + image[1];
+            }
+        }
+        return map;
+    }
+
+    /**
+     * moves every bit of a state made of bit planes to where a cell map sends it
+     * @param cellMap where every cell goes
+     * @param planes number of bit planes in the state
+     * @param words longs in one plane
+     * @param src the array holding the state
+     * @param srcOffset where the state starts in src
+     * @param dest the array to write to
+     * @param destOffset where to write the moved state
+     */
+    public static void permute(int[] cellMap, int planes, int words, long[] src, int srcOffset,
+                               long[] dest, int destOffset) {
+        for (int i = 0; i < planes * words; i++) {
+            dest[destOffset + i] = 0L;
+        }
+        for (int plane = 0; plane < planes; plane++) {
+            for (int word = 0; word < words; word++) {
+                long bits = src[srcOffset + plane * words + word];
+                while (bits != 0) {
+                    int cell = cellMap[(word << 6) + Long.numberOfTrailingZeros(bits)];
+                    bits &= bits - 1;
+                    dest[destOffset + plane * words + (cell >>> 6)] |= 1L << cell;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package puzzles.common.solver;
+
+/**
+ * Estimates how many moves a configuration is from a solution, for HeuristicSolver.
+ * For HeuristicSolver.Mode.A_STAR the estimate must never be more than the real number of moves left
+ * (admissible) for the path to be a shortest one. Greedy search takes any estimate, lower is better.
+ * @param <C> the configurations it can estimate
+ */
+@FunctionalInterface
+public interface Heuristic<C extends Configuration> {
+
+    /**
+     * @param config a configuration
+     * @return estimated number of moves left, 0 for a solution
+     */
+    int estimate(C config);
+}
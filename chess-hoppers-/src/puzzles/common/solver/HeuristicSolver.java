@@ -0,0 +1,155 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Best first solver that always expands the open configuration a Heuristic likes most.
+ * In A_STAR mode that is the one with the smallest moves so far plus estimate, which finds a shortest
+ * path as long as the heuristic never overestimates; ties go to the deeper config. In GREEDY mode it is
+ * just the smallest estimate, which usually expands far fewer configs but can return a longer path.
+ * totalConfigs and uniqueConfigs are counted like Solver counts them, getExpandedConfigs tells how many
+ * configs actually had their neighbors generated.
+ * @param <C> the configurations being searched
+ */
+public class HeuristicSolver<C extends Configuration> extends CountingSolver {
+    /**
+     * which configuration to expand next
+     */
+    public enum Mode {
+        /** smallest moves so far plus estimate, finds a shortest path with an admissible heuristic **/
+        A_STAR,
+        /** smallest estimate, ignores how many moves it took to get there **/
+        GREEDY
+    }
+
+    /** the config the search starts from **/
+    private final C startingConfig;
+    /** estimates the moves left from a config **/
+    private final Heuristic<? super C> heuristic;
+    /** how the next config is picked **/
+    private final Mode mode;
+    /** number of configs whose neighbors were generated **/
+    private int expandedConfigs;
+
+    /**
+     * creates a solver for a puzzle
+     * @param startingConfig the initial configuration
+     * @param heuristic estimates the moves left from a config
+     * @param mode how the next config is picked
+     */
+    public HeuristicSolver(C startingConfig, Heuristic<? super C> heuristic, Mode mode) {
+        this.totalConfigs = 0;
+        this.uniqueConfigs = 0;
+        this.startingConfig = startingConfig;
+        this.heuristic = heuristic;
+        this.mode = mode;
+        this.expandedConfigs = 0;
+    }
+
+    /**
+     * @param moves moves from the start to a config
+     * @param estimate the heuristic's estimate for it
+     * @param sequence the order configs were queued in
+     * @return its priority in the open queue, smaller is expanded first
+     */
+    private long priority(int moves, int estimate, int sequence) {
+        if (mode == Mode.A_STAR) {
+            // equal f goes to the config with more moves behind it, it is closer to a solution
+            return (long) (moves + estimate) << 32 | (Integer.MAX_VALUE - moves);
+        }
+        return (long) estimate << 32 | sequence;
+    }
+
+    /**
+     * solves the puzzle best first
+     * @param start the configuration to start from
+     * @return a path from start to a solution, or an empty list if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public List<Configuration> solve(C start) {
+        Map<Configuration, Integer> ids = new HashMap<>();
+        List<C> configs = new ArrayList<>();
+        int[] moves = new int[64];
+        int[] estimates = new int[64];
+        int[] parents = new int[64];
+        boolean[] closed = new boolean[64];
+        PrimitivePriorityQueue open = new PrimitivePriorityQueue();
+        int sequence = 0;
+
+        ids.put(start, 0);
+        configs.add(start);
+        estimates[0] = heuristic.estimate(start);
+        parents[0] = -1;
+        open.add(priority(0, estimates[0], sequence++), 0);
+        totalConfigs++;
+        uniqueConfigs++;
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            if (closed[current]) {
+                continue;
+            }
+            closed[current] = true;
+            C config = configs.get(current);
+            if (config.isSolution()) {
+                return constructPath(configs, parents, current);
+            }
+            expandedConfigs++;
+            for (Configuration neighbor : config.getNeighbors()) {
+                totalConfigs++;
+                int cost = moves[current] + 1;
+                Integer id = ids.get(neighbor);
+                if (id == null) {
+                    id = configs.size();
+                    if (id == moves.length) {
+                        moves = Arrays.copyOf(moves, id * 2);
+                        estimates = Arrays.copyOf(estimates, id * 2);
+                        parents = Arrays.copyOf(parents, id * 2);
+                        closed = Arrays.copyOf(closed, id * 2);
+                    }
+                    ids.put(neighbor, id);
+                    configs.add((C) neighbor);
+                    uniqueConfigs++;
+                    moves[id] = cost;
+                    estimates[id] = heuristic.estimate((C) neighbor);
+                    parents[id] = current;
+                    open.add(priority(cost, estimates[id], sequence++), id);
+                } else if (mode == Mode.A_STAR && cost < moves[id]) {
+                    // found a shorter way there, even a closed config has to be looked at again
+                    moves[id] = cost;
+                    parents[id] = current;
+                    closed[id] = false;
+                    open.add(priority(cost, estimates[id], sequence++), id);
+                }
+            }
+        }
+        return new LinkedList<>();
+    }
+
+    /**
+     * follows the parents back from the destination
+     * @param configs every config seen, by id
+     * @param parents the id of the config each one was reached from
+     * @param destination the id of the solution
+     * @return the path from the start to the destination
+     */
+    private List<Configuration> constructPath(List<C> configs, int[] parents, int destination) {
+        LinkedList<Configuration> path = new LinkedList<>();
+        for (int current = destination; current >= 0; current = parents[current]) {
+            path.addFirst(configs.get(current));
+        }
+        return path;
+    }
+
+    /**
+     * @return number of configs whose neighbors were generated
+     */
+    public int getExpandedConfigs() {
+        return expandedConfigs;
+    }
+}
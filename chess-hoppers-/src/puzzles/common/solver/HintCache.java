@@ -0,0 +1,200 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Remembers what earlier hint searches of one puzzle found, so asking for hints again costs next to
+ * nothing. Every state on a path to a solution that a search found goes in a table together with the
+ * state to move to next, so a hint from anywhere on a known path is one lookup. Every state a search
+ * proved has no solution below it goes in a dead state cache.
+ * A board that isn't on a known path is searched depth first, trying moves in the same order as
+ * Solver. The search skips known dead states and stops at the first known solvable state it reaches,
+ * then joins its path to the known path from there.
+ * Only for layered puzzles where every solution is reached after the same number of moves, which is
+ * the case when a solution is a fixed number of pieces left as in Hoppers and Chess. Then every path
+ * to a solution is a shortest one, and a search that reuses an earlier path loses nothing. On a fresh
+ * board the search gives the same path as Solver, the first one in move order.
+ * A small enough puzzle can be analyzed up front into a DistanceMap, then every hint and every
+ * dead end check from a board reachable from the start is a lookup without any search.
+ */
+public class HintCache {
+    /** the packed rules of the puzzle **/
+    private final PackedPuzzle puzzle;
+    /** longs per state **/
+    private final int width;
+    /** states known to lead to a solution, the parent of each is the index of the state to move to **/
+    private final PackedStateTable solvable;
+    /** states known to have no solution below them **/
+    private final PackedDeadStateCache deadStates;
+    /** moves to a solution from everything reachable from the start, null until analyzed **/
+    private volatile DistanceMap distances;
+
+    /**
+     * creates an empty cache
+     * @param puzzle the packed rules of the puzzle, must be a LayeredPuzzle
+     */
+    public HintCache(PackedPuzzle puzzle) {
+        if (!(puzzle instanceof LayeredPuzzle)) {
+            throw new IllegalArgumentException("puzzle can revisit states, hints can't be cached");
+        }
+        this.puzzle = puzzle;
+        this.width = puzzle.stateWidth();
+        this.solvable = new PackedStateTable(width);
+        this.deadStates = new PackedDeadStateCache(width, PackedDeadStateCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @return the packed rules the cache is for
+     */
+    public PackedPuzzle getPuzzle() {
+        return puzzle;
+    }
+
+    /**
+     * works out the distance to a solution of every state reachable from a start, unless there are
+     * too many of them
+     * @param start the config to start from, of this cache's puzzle
+     * @param budget how long the analysis may take and how many states it may hold
+     * @return true if the whole reachable graph fit in the budget and was analyzed
+     */
+    public boolean analyze(PackedConfiguration start, SolveBudget budget) {
+        SolveGuard guard = new SolveGuard(budget, null);
+        guard.start();
+        DistanceMap map = DistanceMap.analyze(start, guard);
+        if (map != null) {
+            distances = map;
+        }
+        return map != null;
+    }
+
+    /**
+     * @param board a board of this cache's puzzle
+     * @return moves from the board to a solution, DistanceMap.DEAD if there is none, DistanceMap.UNKNOWN
+     *         if the puzzle wasn't analyzed or the board isn't reachable from where it was
+     */
+    public int distance(PackedConfiguration board) {
+        DistanceMap map = distances;
+        return map == null ? DistanceMap.UNKNOWN : map.distance(board);
+    }
+
+    /**
+     * finds the path from a board to a solution, searching only if no earlier search already knows it.
+     * fits SolveHandle.Search
+     * @param start the board, of this cache's puzzle
+     * @param guard the started guard to check while searching
+     * @return the path from start to a solution if there is one, otherwise why there isn't
+     */
+    public synchronized SolveHandle.Result solve(PackedConfiguration start, SolveGuard guard) {
+        DistanceMap map = distances;
+        List<Configuration> analyzed = map == null ? null : map.path(start);
+        if (analyzed != null) {
+            SolveOutcome outcome = analyzed.isEmpty() ? SolveOutcome.NO_SOLUTION : SolveOutcome.SOLVED;
+            return new SolveHandle.Result(outcome, analyzed, 0, 0);
+        }
+        long[] packed = new long[width];
+        start.pack(packed, 0);
+        int[] counts = new int[2];
+        int index = solvable.indexOf(packed, 0);
+        if (index < 0 && !deadStates.isDead(packed, 0)) {
+            index = search(packed, guard, counts);
+        }
+        if (index >= 0) {
+            return new SolveHandle.Result(SolveOutcome.SOLVED, knownPath(index), counts[0], counts[1]);
+        }
+        SolveOutcome outcome = guard.getStopReason() != null ? guard.getStopReason() : SolveOutcome.NO_SOLUTION;
+        return new SolveHandle.Result(outcome, new LinkedList<>(), counts[0], counts[1]);
+    }
+
+    /**
+     * @param index a state in the solvable table
+     * @return the known path from that state to a solution
+     */
+    private List<Configuration> knownPath(int index) {
+        List<Configuration> path = new LinkedList<>();
+        for (int current = index; current != PackedStateTable.NO_PARENT; current = solvable.parent(current)) {
+            path.add(puzzle.unpack(solvable.states(), solvable.offset(current)));
+        }
+        return path;
+    }
+
+    /**
+     * searches depth first from a state that isn't known to be solvable or dead, and records what it
+     * finds: the states of the path it finds as solvable, the states it backs out of as dead
+     * @param start the packed state to search from
+     * @param guard the guard to check every SolveGuard.CHECK_INTERVAL states
+     * @param counts configs generated and distinct configs searched, added to
+     * @return the index of start in the solvable table, or -1 if no solution was found
+     */
+    private int search(long[] start, SolveGuard guard, int[] counts) {
+        // path[depth * width ..] is the state at each depth, children.get(depth) its neighbors
+        long[] path = start.clone();
+        List<PackedBuffer> children = new ArrayList<>();
+        int[] next = new int[1];
+        int depth = 0;
+        counts[0]++;
+        counts[1]++;
+        if (puzzle.isSolution(start, 0)) {
+            return solvable.add(start, 0, PackedStateTable.NO_PARENT);
+        }
+        children.add(new PackedBuffer(width));
+        puzzle.neighbors(path, 0, children.get(0));
+
+        while (depth >= 0) {
+            PackedBuffer moves = children.get(depth);
+            if (next[depth] >= moves.size()) {
+                deadStates.markDead(path, depth * width);
+                depth--;
+                continue;
+            }
+            int move = next[depth]++;
+            counts[0]++;
+            if (guard != null && (counts[0] & (SolveGuard.CHECK_INTERVAL - 1)) == 0
+                    && guard.shouldStop(depth + 1, counts[0], counts[1])) {
+                return -1;
+            }
+            int known = solvable.indexOf(moves.array(), moves.offset(move));
+            if (known < 0 && puzzle.isSolution(moves.array(), moves.offset(move))) {
+                known = solvable.add(moves.array(), moves.offset(move), PackedStateTable.NO_PARENT);
+            }
+            if (known >= 0) {
+                return record(path, depth, known);
+            }
+            if (deadStates.isDead(moves.array(), moves.offset(move))) {
+                continue;
+            }
+            depth++;
+            counts[1]++;
+            if ((depth + 1) * width > path.length) {
+                path = Arrays.copyOf(path, path.length * 2);
+                next = Arrays.copyOf(next, next.length * 2);
+            }
+            System.arraycopy(moves.array(), moves.offset(move), path, depth * width, width);
+            next[depth] = 0;
+            if (children.size() == depth) {
+                children.add(new PackedBuffer(width));
+            }
+            PackedBuffer grandchildren = children.get(depth);
+            grandchildren.clear();
+            puzzle.neighbors(path, depth * width, grandchildren);
+        }
+        return -1;
+    }
+
+    /**
+     * adds the states of the current path to the solvable table, each pointing at the one after it
+     * @param path the states of the current path
+     * @param depth depth of the last state on the path
+     * @param known index of the solvable state the last state moves to
+     * @return the index of the first state of the path
+     */
+    private int record(long[] path, int depth, int known) {
+        int following = known;
+        for (int d = depth; d >= 0; d--) {
+            following = solvable.add(path, d * width, following);
+        }
+        return following;
+    }
+}
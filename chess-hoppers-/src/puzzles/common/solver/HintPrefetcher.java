@@ -0,0 +1,93 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Solves the board a player is looking at on a background thread before they ask for a hint, so the
+ * hint is usually ready when they do. Only the newest board is worth solving: handing over a different
+ * board cancels the solve of the old one, and the background thread moves on to the new one as soon
+ * as the old solve notices. Asking again for the same board reuses the solve that is running or done.
+ * Boards are told apart by their packed state when they are handed over, and each solve runs on its own
+ * copy, so a caller that changes its board in place afterwards starts a new solve and never races one.
+ */
+public class HintPrefetcher {
+    /** runs the solves one at a time, on a daemon thread so it never keeps the program alive **/
+    private final ExecutorService executor;
+    /** the limits of each solve **/
+    private final SolveBudget budget;
+    /** the search each solve runs **/
+    private final SolveHandle.Search search;
+    /** the packed rules of the board the current solve is for, null before the first one **/
+    private PackedPuzzle puzzle;
+    /** the packed state of the board the current solve is for **/
+    private long[] state;
+    /** the current solve **/
+    private SolveHandle handle;
+
+    /**
+     * creates a prefetcher that solves with the breadth first solvers
+     * @param budget the limits of each solve
+     */
+    public HintPrefetcher(SolveBudget budget) {
+        this(budget, null);
+    }
+
+    /**
+     * creates a prefetcher
+     * @param budget the limits of each solve
+     * @param search the search each solve runs, e.g. one backed by a HintCache, null for the breadth
+     *               first solvers
+     */
+    public HintPrefetcher(SolveBudget budget, SolveHandle.Search search) {
+        this.budget = budget;
+        this.search = search;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hint-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * starts solving a board, unless it is already being solved. cancels the solve of any other board
+     * @param board the board the player is looking at now
+     */
+    public synchronized void prefetch(PackedConfiguration board) {
+        PackedPuzzle puzzle = board.getPackedPuzzle();
+        long[] state = new long[puzzle.stateWidth()];
+        board.pack(state, 0);
+        if (puzzle == this.puzzle && Arrays.equals(state, this.state)) {
+            return;
+        }
+        if (handle != null) {
+            handle.cancel();
+        }
+        this.puzzle = puzzle;
+        this.state = state;
+        PackedConfiguration snapshot = (PackedConfiguration) puzzle.unpack(state.clone(), 0);
+        this.handle = search == null ? SolveHandle.submit(snapshot, budget, null, executor)
+                : SolveHandle.submit(snapshot, budget, null, executor, search);
+    }
+
+    /**
+     * @param board the board to get a hint for
+     * @return completes with the solve of that board, right away if it is already done
+     */
+    public synchronized CompletableFuture<SolveHandle.Result> hint(PackedConfiguration board) {
+        prefetch(board);
+        return handle.getFuture();
+    }
+
+    /**
+     * cancels the current solve and stops the background thread
+     */
+    public synchronized void shutdown() {
+        if (handle != null) {
+            handle.cancel();
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,44 @@
+package puzzles.common.solver;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Rebuilds a path from per layer parent indices and neighbor numbers, for the solvers that drop
+ * the states of a layer once it has been expanded.
+ */
+class LayerPath {
+
+    /**
+     * walks the parent indices back to the first layer to find which neighbor was taken at each depth,
+     * then replays those neighbors from the start to get the states back
+     * @param puzzle the packed rules
+     * @param packedStart the packed start state
+     * @param parents parent index of every state in its layer, one array per layer, index 0 unused
+     * @param moves neighbor number of every state in its parent's neighbors, one array per layer
+     * @param depth the layer the destination is in
+     * @param destination the index of the destination in its layer
+     * @return the path from the start to the destination
+     */
+    static List<Configuration> replay(PackedPuzzle puzzle, long[] packedStart, List<int[]> parents,
+                                      List<char[]> moves, int depth, int destination) {
+        int[] taken = new int[depth];
+        int index = destination;
+        for (int layer = depth; layer > 0; layer--) {
+            taken[layer - 1] = moves.get(layer)[index];
+            index = parents.get(layer)[index];
+        }
+
+        List<Configuration> path = new LinkedList<>();
+        long[] state = packedStart.clone();
+        PackedBuffer neighbors = new PackedBuffer(state.length);
+        path.add(puzzle.unpack(state, 0));
+        for (int move : taken) {
+            neighbors.clear();
+            puzzle.neighbors(state, 0, neighbors);
+            System.arraycopy(neighbors.array(), neighbors.offset(move), state, 0, state.length);
+            path.add(puzzle.unpack(state, 0));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,10 @@
+package puzzles.common.solver;
+
+/**
+ * Marks packed rules where every move removes exactly one piece, like a frog jumping over a green frog
+ * in Hoppers or a capture in chess solitaire. The number of pieces then tells how deep in the search a
+ * state is, so a state can only show up again in its own breadth first layer and LayeredSolver only
+ * has to remember one layer of states at a time.
+ */
+public interface LayeredPuzzle extends PackedPuzzle {
+}
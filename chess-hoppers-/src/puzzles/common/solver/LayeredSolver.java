@@ -0,0 +1,109 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Breadth first solver for puzzles where every move removes one piece (see LayeredPuzzle).
+ * Duplicates can only happen inside one layer, so only the layer being expanded and the layer being
+ * built are kept as states. Once a layer is done its states are dropped and all that is left of it is,
+ * for every state, the index of its parent in the layer before and which of the parent's neighbors it was.
+ * The path is rebuilt at the end by replaying those neighbor numbers from the start.
+ * Expands states in the same order as Solver, so it reports the same path and counts.
+ */
+public class LayeredSolver extends CountingSolver {
+    /** the config the search starts from **/
+    private final PackedConfiguration startingConfig;
+    /** parent index of every state, one array per layer, null for the first layer **/
+    private final List<int[]> layerParents;
+    /** neighbor number of every state in its parent's neighbors, one array per layer **/
+    private final List<char[]> layerMoves;
+    /** most states held in one layer **/
+    private int widestLayer;
+
+    /**
+     * creates a solver for a puzzle
+     * @param startingConfig the initial configuration, its packed rules must be a LayeredPuzzle
+     */
+    public LayeredSolver(PackedConfiguration startingConfig) {
+        if (!(startingConfig.getPackedPuzzle() instanceof LayeredPuzzle)) {
+            throw new IllegalArgumentException("puzzle can revisit states across layers, use PackedSolver");
+        }
+        this.startingConfig = startingConfig;
+        this.layerParents = new ArrayList<>();
+        this.layerMoves = new ArrayList<>();
+        this.widestLayer = 0;
+    }
+
+    /**
+     * solves the puzzle one layer at a time
+     * @param start the configuration to start from
+     * @return the shortest path from start to a solution, or an empty list if there is none
+     */
+    public List<Configuration> solve(PackedConfiguration start) {
+        PackedPuzzle puzzle = start.getPackedPuzzle();
+        int width = puzzle.stateWidth();
+        PackedBuffer neighbors = new PackedBuffer(width);
+        layerParents.clear();
+        layerMoves.clear();
+
+        long[] packedStart = new long[width];
+        start.pack(packedStart, 0);
+        PackedStateTable current = new PackedStateTable(width);
+        current.add(packedStart, 0, PackedStateTable.NO_PARENT);
+        layerParents.add(null);
+        layerMoves.add(null);
+        totalConfigs++;
+        uniqueConfigs++;
+        events.started(totalConfigs, uniqueConfigs);
+
+        // states expanded so far, only counted for the guard
+        long expanded = 0;
+        while (current.size() > 0) {
+            widestLayer = Math.max(widestLayer, current.size());
+            PackedStateTable next = new PackedStateTable(width);
+            char[] moves = new char[Math.max(16, current.size())];
+            for (int index = 0; index < current.size(); index++) {
+                if (guard != null && (expanded++ & (SolveGuard.CHECK_INTERVAL - 1)) == 0
+                        && guard.shouldStop(layerParents.size() - 1, expanded, uniqueConfigs)) {
+                    events.layerDone(layerParents.size() - 1, index, totalConfigs, uniqueConfigs);
+                    return events.ended(new LinkedList<>(), totalConfigs, uniqueConfigs);
+                }
+                if (puzzle.isSolution(current.states(), current.offset(index))) {
+                    int depth = layerParents.size() - 1;
+                    events.layerDone(depth, index, totalConfigs, uniqueConfigs);
+                    return events.ended(LayerPath.replay(puzzle, packedStart, layerParents, layerMoves, depth, index),
+                            totalConfigs, uniqueConfigs);
+                }
+                neighbors.clear();
+                puzzle.neighbors(current.states(), current.offset(index), neighbors);
+                for (int i = 0; i < neighbors.size(); i++) {
+                    totalConfigs++;
+                    int added = next.add(neighbors.array(), neighbors.offset(i), index);
+                    if (added >= 0) {
+                        uniqueConfigs++;
+                        if (added >= moves.length) {
+                            moves = Arrays.copyOf(moves, moves.length * 2);
+                        }
+                        moves[added] = (char) i;
+                    }
+                }
+            }
+            // the layer is done, keep only how each state of the next one was reached
+            events.layerDone(layerParents.size() - 1, current.size(), totalConfigs, uniqueConfigs);
+            layerParents.add(next.copyParents());
+            layerMoves.add(Arrays.copyOf(moves, next.size()));
+            current = next;
+        }
+        return events.ended(new LinkedList<>(), totalConfigs, uniqueConfigs);
+    }
+
+    /**
+     * @return the most states that were held in one layer
+     */
+    public int getWidestLayer() {
+        return widestLayer;
+    }
+}
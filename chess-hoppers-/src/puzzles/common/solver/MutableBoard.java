@@ -0,0 +1,55 @@
+package puzzles.common.solver;
+
+/**
+ * A single puzzle board that is changed in place instead of copied. Moves are plain ints, the board
+ * writes the moves of its current position into a buffer it is handed, make applies one and unmake
+ * takes it back, so a search can walk the whole tree on one board without allocating anything.
+ * The board's state is its packed form, so it can be looked up in packed tables as it changes.
+ */
+public interface MutableBoard {
+
+    /**
+     * @return the most moves the current position, or any position reached from it, can have
+     */
+    int maxMoves();
+
+    /**
+     * @return the most moves that can be made in a row from the current position
+     */
+    int maxDepth();
+
+    /**
+     * writes the moves of the current position, in the order the puzzle's neighbors come in
+     * @param moves the buffer to write to, with room for maxMoves() moves after offset
+     * @param offset where to write the first move
+     * @return number of moves written
+     */
+    int generateMoves(int[] moves, int offset);
+
+    /**
+     * applies a move to the board
+     * @param move a move generated from the current position
+     */
+    void make(int move);
+
+    /**
+     * takes back the last move made
+     * @param move the move that was made
+     */
+    void unmake(int move);
+
+    /**
+     * @return true if the current position is a solution
+     */
+    boolean isSolution();
+
+    /**
+     * @return the packed current position, changed in place by make and unmake
+     */
+    long[] state();
+
+    /**
+     * @return the packed rules the state follows
+     */
+    PackedPuzzle getPackedPuzzle();
+}
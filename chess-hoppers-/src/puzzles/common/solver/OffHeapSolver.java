@@ -0,0 +1,60 @@
+package puzzles.common.solver;
+
+import java.util.List;
+
+/**
+ * PackedSolver with its visited states and frontier in an OffHeapStateTable, for searches too big to
+ * keep on the heap. Runs PackedSolver's search, so it finds the same path and reports the same total
+ * and unique config counts, while the heap only holds a few scratch arrays.
+ */
+public class OffHeapSolver extends PackedSolver {
+    /** most bytes of direct memory the visited states may take **/
+    private final long capacityBytes;
+    /** the table of the solve running now **/
+    private OffHeapStateTable table;
+    /** bytes of direct memory the last solve's table ended up holding **/
+    private long allocatedBytes;
+
+    /**
+     * creates a solver for a puzzle
+     * @param startingConfig the initial configuration
+     * @param capacityBytes most bytes of direct memory the visited states may take, a solve that needs
+     *                      more throws IllegalStateException
+     */
+    public OffHeapSolver(PackedConfiguration startingConfig, long capacityBytes) {
+        super(startingConfig);
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**
+     * solves the puzzle with a breadth first search over packed states held off the heap
+     * @param start the configuration to start from
+     * @return the shortest path from start to a solution, or an empty list if there is none
+     * @throws IllegalStateException if the visited states don't fit in the solver's capacity
+     */
+    @Override
+    public List<Configuration> solve(PackedConfiguration start) {
+        try {
+            return super.solve(start);
+        } finally {
+            if (table != null) {
+                allocatedBytes = table.allocatedBytes();
+                // let the direct memory go with the table instead of with the solver
+                table = null;
+            }
+        }
+    }
+
+    /**
+     * @return bytes of direct memory the last solve's visited states took
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    protected StateTable newTable(int width) {
+        table = new OffHeapStateTable(width, capacityBytes);
+        return table;
+    }
+}
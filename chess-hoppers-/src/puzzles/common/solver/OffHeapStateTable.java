@@ -0,0 +1,244 @@
+package puzzles.common.solver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * PackedStateTable kept in direct memory instead of on the heap, so a search with tens of millions
+ * of states costs the garbage collector a few buffer objects no matter how big it gets.
+ * The same insertion ordered open addressing table with parent indices: states are numbered 0, 1, 2...
+ * in the order they were added and, in a breadth first search, the numbers from the one being
+ * expanded up to size() are the frontier, so the table is also the queue.
+ * Its size is set in bytes. States and parents are stored in pages that are allocated as the table
+ * fills, the hash slots are doubled as it fills, and adding past the byte limit throws.
+ * Reading a state copies it into a long[] since the puzzles work on arrays.
+ */
+public class OffHeapStateTable implements StateTable {
+    /** log2 of the number of states in a page **/
+    private static final int PAGE_SHIFT = 16;
+    /** states in a page **/
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    /** fewest hash slots **/
+    private static final int MIN_SLOTS = 1 << 12;
+
+    /** longs per state **/
+    private final int width;
+    /** most bytes the table may take **/
+    private final long capacityBytes;
+    /** the states of every page back to back, in insertion order **/
+    private LongBuffer[] statePages;
+    /** the parent of every state of every page **/
+    private IntBuffer[] parentPages;
+    /** hash slots holding state index + 1, 0 means empty **/
+    private IntBuffer slots;
+    /** number of pages allocated **/
+    private int pages;
+    /** number of states **/
+    private int size;
+
+    /**
+     * creates an empty table
+     * @param width longs per state
+     * @param capacityBytes most bytes of direct memory the table may take, pages and slots included
+     */
+    public OffHeapStateTable(int width, long capacityBytes) {
+        if (capacityBytes < pageBytes(width) + MIN_SLOTS * 4L) {
+            throw new IllegalArgumentException("need at least " + (pageBytes(width) + MIN_SLOTS * 4L)
+                    + " bytes for states of width " + width + ": " + capacityBytes);
+        }
+        this.width = width;
+        this.capacityBytes = capacityBytes;
+        this.statePages = new LongBuffer[16];
+        this.parentPages = new IntBuffer[16];
+        this.slots = allocate(MIN_SLOTS * 4L).asIntBuffer();
+        this.pages = 0;
+        this.size = 0;
+    }
+
+    /**
+     * adds a state if it is not in the table yet
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @param parent the index of the state it was reached from, or PackedStateTable.NO_PARENT
+     * @return the index of the new state, or -(index + 1) of the state already in the table
+     * @throws IllegalStateException if the state doesn't fit in the bytes the table was given
+     */
+    @Override
+    public int add(long[] src, int offset, int parent) {
+        if ((size + 1) * 2L > slots.capacity()) {
+            rehash(slots.capacity() * 2);
+        }
+        int mask = slots.capacity() - 1;
+        int slot = PackedStateTable.hash(src, offset, width) & mask;
+        while (slots.get(slot) != 0) {
+            if (equalsAt(slots.get(slot) - 1, src, offset)) {
+                return -slots.get(slot);
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == pages << PAGE_SHIFT) {
+            addPage();
+        }
+        LongBuffer page = statePages[size >>> PAGE_SHIFT];
+        int start = (size & (PAGE_SIZE - 1)) * width;
+        for (int i = 0; i < width; i++) {
+            page.put(start + i, src[offset + i]);
+        }
+        parentPages[size >>> PAGE_SHIFT].put(size & (PAGE_SIZE - 1), parent);
+        slots.put(slot, size + 1);
+        return size++;
+    }
+
+    /**
+     * finds a state
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @return the index of the state, or -1 if it is not in the table
+     */
+    @Override
+    public int indexOf(long[] src, int offset) {
+        int mask = slots.capacity() - 1;
+        int slot = PackedStateTable.hash(src, offset, width) & mask;
+        while (slots.get(slot) != 0) {
+            if (equalsAt(slots.get(slot) - 1, src, offset)) {
+                return slots.get(slot) - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * copies a state out of the table
+     * @param index a state number
+     * @param dest the array to copy the state to
+     * @param offset where the state starts in dest
+     */
+    @Override
+    public void get(int index, long[] dest, int offset) {
+        LongBuffer page = statePages[index >>> PAGE_SHIFT];
+        int start = (index & (PAGE_SIZE - 1)) * width;
+        for (int i = 0; i < width; i++) {
+            dest[offset + i] = page.get(start + i);
+        }
+    }
+
+    /**
+     * @param index a state number
+     * @return the index of the state it was reached from, or PackedStateTable.NO_PARENT
+     */
+    @Override
+    public int parent(int index) {
+        return parentPages[index >>> PAGE_SHIFT].get(index & (PAGE_SIZE - 1));
+    }
+
+    /**
+     * @return the number of states in the table
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return longs per state
+     */
+    @Override
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return bytes of direct memory the table holds now
+     */
+    public long allocatedBytes() {
+        return pages * pageBytes(width) + slots.capacity() * 4L;
+    }
+
+    /**
+     * @return most bytes of direct memory the table may take
+     */
+    public long capacityBytes() {
+        return capacityBytes;
+    }
+
+    /**
+     * @param width longs per state
+     * @return bytes of one page of states and their parents
+     */
+    private static long pageBytes(int width) {
+        return (long) PAGE_SIZE * (width * 8L + 4);
+    }
+
+    /**
+     * @param bytes size of the buffer
+     * @return a direct buffer in the machine's byte order, so reads and writes are plain loads and stores
+     */
+    private static ByteBuffer allocate(long bytes) {
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * allocates the page the next state goes in
+     * @throws IllegalStateException if it doesn't fit in the bytes the table was given
+     */
+    private void addPage() {
+        if (allocatedBytes() + pageBytes(width) > capacityBytes) {
+            throw new IllegalStateException("off-heap state table is full at " + size + " states, "
+                    + capacityBytes + " bytes");
+        }
+        if (pages == statePages.length) {
+            statePages = Arrays.copyOf(statePages, pages * 2);
+            parentPages = Arrays.copyOf(parentPages, pages * 2);
+        }
+        statePages[pages] = allocate((long) PAGE_SIZE * width * 8).asLongBuffer();
+        parentPages[pages] = allocate((long) PAGE_SIZE * 4).asIntBuffer();
+        pages++;
+    }
+
+    /**
+     * compares a stored state with another one
+     * @param index the stored state's number
+     * @param src the array holding the other state
+     * @param offset where the other state starts in src
+     * @return true if they are the same state
+     */
+    private boolean equalsAt(int index, long[] src, int offset) {
+        LongBuffer page = statePages[index >>> PAGE_SHIFT];
+        int start = (index & (PAGE_SIZE - 1)) * width;
+        for (int i = 0; i < width; i++) {
+            if (page.get(start + i) != src[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * grows the slots and puts every state back in
+     * @param capacity the new number of slots, a power of two
+     * @throws IllegalStateException if they don't fit in the bytes the table was given
+     */
+    private void rehash(int capacity) {
+        // a direct buffer holds at most 2GB, and the old slots are still held while the new ones are filled
+        if (capacity * 4L > Integer.MAX_VALUE || allocatedBytes() + capacity * 4L > capacityBytes) {
+            throw new IllegalStateException("off-heap state table is full at " + size + " states, "
+                    + capacityBytes + " bytes");
+        }
+        IntBuffer grown = allocate(capacity * 4L).asIntBuffer();
+        int mask = capacity - 1;
+        long[] state = new long[width];
+        for (int index = 0; index < size; index++) {
+            get(index, state, 0);
+            int slot = PackedStateTable.hash(state, 0, width) & mask;
+            while (grown.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            grown.put(slot, index + 1);
+        }
+        slots = grown;
+    }
+}
@@ -0,0 +1,97 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of packed states that all have the same width, stored back to back in one long[].
+ * Record i starts at offset i * width.
+ */
+public class PackedBuffer {
+    /** longs per record **/
+    private final int width;
+    /** the records **/
+    private long[] data;
+    /** number of records **/
+    private int size;
+
+    /**
+     * creates an empty buffer
+     * @param width longs per record
+     */
+    public PackedBuffer(int width) {
+        this(width, 16);
+    }
+
+    /**
+     * creates an empty buffer with room for capacity records
+     * @param width longs per record
+     * @param capacity initial number of records
+     */
+    public PackedBuffer(int width, int capacity) {
+        this.width = width;
+        this.data = new long[Math.max(1, capacity) * width];
+        this.size = 0;
+    }
+
+    /**
+     * reserves space for one more record. the record is zeroed, the caller fills it in through array()
+     * @return the offset of the new record in array()
+     */
+    public int append() {
+        int offset = size * width;
+        if (offset + width > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, offset + width));
+        }
+        Arrays.fill(data, offset, offset + width, 0L);
+        size++;
+        return offset;
+    }
+
+    /**
+     * copies a record onto the end of this buffer
+     * @param src the array holding the record
+     * @param offset where the record starts in src
+     * @return the offset of the copy in array()
+     */
+    public int append(long[] src, int offset) {
+        int dest = append();
+        System.arraycopy(src, offset, data, dest, width);
+        return dest;
+    }
+
+    /**
+     * removes every record, keeping the allocated space
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return the backing array, only valid until the next append
+     */
+    public long[] array() {
+        return data;
+    }
+
+    /**
+     * @param index the record number
+     * @return the offset of that record in array()
+     */
+    public int offset(int index) {
+        return index * width;
+    }
+
+    /**
+     * @return the number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return longs per record
+     */
+    public int width() {
+        return width;
+    }
+}
@@ -0,0 +1,21 @@
+package puzzles.common.solver;
+
+/**
+ * Optional extension of Configuration for puzzles that can encode their state as a few longs.
+ * A configuration that implements this can be solved with PackedSolver, which never keeps
+ * Configuration objects for the states it visits.
+ */
+public interface PackedConfiguration extends Configuration {
+
+    /**
+     * @return the packed rules shared by every configuration of this puzzle
+     */
+    PackedPuzzle getPackedPuzzle();
+
+    /**
+     * writes this configuration's packed state into dest
+     * @param dest the array to write to, needs getPackedPuzzle().stateWidth() longs after offset
+     * @param offset where the state starts in dest
+     */
+    void pack(long[] dest, int offset);
+}
@@ -0,0 +1,200 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * DeadStateCache for packed states. The entries are allocated up front and found through an open
+ * addressing table of entry numbers, and once it is full the state that was used longest ago is dropped,
+ * the same as DeadStateCache, so both caches give up the same states and searches that use them prune
+ * the same subtrees. States are compared exactly, so a hash collision can never make a solvable state
+ * look dead. Nothing is allocated after the constructor.
+ * Not synchronized, every search keeps its own.
+ */
+public class PackedDeadStateCache {
+    /** default number of states kept **/
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    /** an empty hash slot, or no entry at that end of the use order **/
+    private static final int NONE = -1;
+
+    /** longs per state **/
+    private final int width;
+    /** most states kept at once **/
+    private final int capacity;
+    /** hash slots - 1, there are at least twice as many slots as entries **/
+    private final int mask;
+    /** the entry in every hash slot, or NONE **/
+    private final int[] slots;
+    /** the state of every entry, back to back **/
+    private final long[] states;
+    /** the entry used just before each entry, NONE for the one used longest ago **/
+    private final int[] older;
+    /** the entry used just after each entry, NONE for the one used last **/
+    private final int[] newer;
+    /** number of entries in use **/
+    private int size;
+    /** the entry used longest ago **/
+    private int eldest;
+    /** the entry used last **/
+    private int youngest;
+    /** number of lookups that found a dead state **/
+    private long hits;
+
+    /**
+     * creates an empty cache
+     * @param width longs per state
+     * @param capacity most states kept at once
+     */
+    public PackedDeadStateCache(int width, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        int slotCount = 2;
+        while (slotCount < capacity * 2) {
+            slotCount <<= 1;
+        }
+        this.width = width;
+        this.capacity = capacity;
+        this.mask = slotCount - 1;
+        this.slots = new int[slotCount];
+        Arrays.fill(slots, NONE);
+        this.states = new long[capacity * width];
+        this.older = new int[capacity];
+        this.newer = new int[capacity];
+        this.size = 0;
+        this.eldest = NONE;
+        this.youngest = NONE;
+        this.hits = 0;
+    }
+
+    /**
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @return true if the state is known to have no solution below it
+     */
+    public boolean isDead(long[] src, int offset) {
+        int entry = slots[slotOf(src, offset)];
+        if (entry == NONE) {
+            return false;
+        }
+        touch(entry);
+        hits++;
+        return true;
+    }
+
+    /**
+     * remembers that a state has no solution below it
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     */
+    public void markDead(long[] src, int offset) {
+        int slot = slotOf(src, offset);
+        if (slots[slot] != NONE) {
+            touch(slots[slot]);
+            return;
+        }
+        int entry;
+        if (size < capacity) {
+            entry = size++;
+        } else {
+            entry = eldest;
+            unlink(entry);
+            removeSlot(entry);
+            // taking the old state out can move the others, look again
+            slot = slotOf(src, offset);
+        }
+        System.arraycopy(src, offset, states, entry * width, width);
+        slots[slot] = entry;
+        linkYoungest(entry);
+    }
+
+    /**
+     * @return number of states held
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of lookups that found a dead state
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @return the hash slot holding the state, or the empty slot it would go in
+     */
+    private int slotOf(long[] src, int offset) {
+        int slot = PackedStateTable.hash(src, offset, width) & mask;
+        while (slots[slot] != NONE && !Arrays.equals(states, slots[slot] * width, slots[slot] * width + width,
+                src, offset, offset + width)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * empties the hash slot of an entry and moves the entries probed past it back into the gap
+     * @param entry the entry to take out
+     */
+    private void removeSlot(int entry) {
+        int hole = PackedStateTable.hash(states, entry * width, width) & mask;
+        while (slots[hole] != entry) {
+            hole = (hole + 1) & mask;
+        }
+        for (int next = (hole + 1) & mask; slots[next] != NONE; next = (next + 1) & mask) {
+            int home = PackedStateTable.hash(states, slots[next] * width, width) & mask;
+            // an entry can fill the hole if the hole is no further from where it was probed from
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+        }
+        slots[hole] = NONE;
+    }
+
+    /**
+     * makes an entry the one used last
+     * @param entry the entry
+     */
+    private void touch(int entry) {
+        if (entry != youngest) {
+            unlink(entry);
+            linkYoungest(entry);
+        }
+    }
+
+    /**
+     * takes an entry out of the use order
+     * @param entry the entry
+     */
+    private void unlink(int entry) {
+        if (older[entry] != NONE) {
+            newer[older[entry]] = newer[entry];
+        } else {
+            eldest = newer[entry];
+        }
+        if (newer[entry] != NONE) {
+            older[newer[entry]] = older[entry];
+        } else {
+            youngest = older[entry];
+        }
+    }
+
+    /**
+     * puts an entry at the end of the use order
+     * @param entry the entry
+     */
+    private void linkYoungest(int entry) {
+        older[entry] = youngest;
+        newer[entry] = NONE;
+        if (youngest != NONE) {
+            newer[youngest] = entry;
+        } else {
+            eldest = entry;
+        }
+        youngest = entry;
+    }
+}
@@ -0,0 +1,41 @@
+package puzzles.common.solver;
+
+/**
+ * The rules of a puzzle expressed over packed states. A packed state is a fixed number of longs
+ * (the state width) stored inside a bigger long[] at some offset, so a solver can keep millions of
+ * them in flat primitive arrays instead of one Configuration object per state.
+ * One PackedPuzzle is shared by every state of the same puzzle, so it is where the board
+ * geometry and the destination live.
+ */
+public interface PackedPuzzle {
+
+    /**
+     * @return the number of longs used by one packed state
+     */
+    int stateWidth();
+
+    /**
+     * checks if the packed state is a solution
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @return true if the state is a solution, false otherwise
+     */
+    boolean isSolution(long[] states, int offset);
+
+    /**
+     * generates the neighbors of a packed state, in the same order Configuration.getNeighbors
+     * returns them, and appends each one to out
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @param out the buffer the neighbors are appended to
+     */
+    void neighbors(long[] states, int offset, PackedBuffer out);
+
+    /**
+     * turns a packed state back into a normal configuration, used when printing the path
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @return the configuration the packed state stands for
+     */
+    Configuration unpack(long[] states, int offset);
+}
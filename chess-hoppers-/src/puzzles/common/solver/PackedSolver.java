@@ -0,0 +1,113 @@
+package puzzles.common.solver;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Breadth first solver that works on packed states instead of Configuration objects.
+ * Visits the states in the same order as Solver, so it finds the same path and reports the same
+ * total and unique config counts, but each visited state only costs its packed longs plus a parent index.
+ */
+public class PackedSolver extends CountingSolver {
+    /** the config the search starts from **/
+    private final PackedConfiguration startingConfig;
+    /** most states found but not yet expanded at one time **/
+    private int peakFrontier;
+
+    /**
+     * creates a solver for a puzzle
+     * @param startingConfig the initial configuration
+     */
+    public PackedSolver(PackedConfiguration startingConfig) {
+        this.totalConfigs = 0;
+        this.uniqueConfigs = 0;
+        this.startingConfig = startingConfig;
+    }
+
+    /**
+     * solves the puzzle with a breadth first search over packed states
+     * @param start the configuration to start from
+     * @return the shortest path from start to a solution, or an empty list if there is none
+     */
+    public List<Configuration> solve(PackedConfiguration start) {
+        PackedPuzzle puzzle = start.getPackedPuzzle();
+        int width = puzzle.stateWidth();
+        StateTable visited = newTable(width);
+        PackedBuffer neighbors = new PackedBuffer(width);
+        long[] state = new long[width];
+
+        start.pack(state, 0);
+        visited.add(state, 0, PackedStateTable.NO_PARENT);
+        totalConfigs++;
+        uniqueConfigs++;
+        events.started(totalConfigs, uniqueConfigs);
+
+        // the table hands out indices in insertion order, so it doubles as the queue
+        int destination = -1;
+        // the states of the layer being expanded are the indices from layerStart up to layerEnd
+        int depth = 0;
+        int layerStart = 0;
+        int layerEnd = 1;
+        int current;
+        for (current = 0; current < visited.size(); current++) {
+            if (current == layerEnd) {
+                events.layerDone(depth++, layerEnd - layerStart, totalConfigs, uniqueConfigs);
+                layerStart = layerEnd;
+                layerEnd = visited.size();
+            }
+            if (guard != null && (current & (SolveGuard.CHECK_INTERVAL - 1)) == 0
+                    && guard.shouldStop(depth, current, uniqueConfigs)) {
+                break;
+            }
+            visited.get(current, state, 0);
+            if (puzzle.isSolution(state, 0)) {
+                destination = current;
+                break;
+            }
+            neighbors.clear();
+            puzzle.neighbors(state, 0, neighbors);
+            for (int i = 0; i < neighbors.size(); i++) {
+                totalConfigs++;
+                if (visited.add(neighbors.array(), neighbors.offset(i), current) >= 0) {
+                    uniqueConfigs++;
+                }
+            }
+            peakFrontier = Math.max(peakFrontier, visited.size() - current - 1);
+        }
+        events.layerDone(depth, current - layerStart, totalConfigs, uniqueConfigs);
+        return events.ended(constructPath(puzzle, visited, destination), totalConfigs, uniqueConfigs);
+    }
+
+    /**
+     * @return the most states that were found but not yet expanded at one time
+     */
+    public int getPeakFrontier() {
+        return peakFrontier;
+    }
+
+    /**
+     * makes the table a solve keeps its visited states in
+     * @param width longs per state
+     * @return an empty table, on the heap unless a subclass says otherwise
+     */
+    protected StateTable newTable(int width) {
+        return new PackedStateTable(width);
+    }
+
+    /**
+     * follows the parent indices back from the destination and unpacks each state on the way
+     * @param puzzle the packed rules
+     * @param visited the table of visited states
+     * @param destination the index of the solution, or -1 if there is none
+     * @return the path from the start to the destination
+     */
+    private List<Configuration> constructPath(PackedPuzzle puzzle, StateTable visited, int destination) {
+        List<Configuration> path = new LinkedList<>();
+        long[] state = new long[visited.width()];
+        for (int current = destination; current >= 0; current = visited.parent(current)) {
+            visited.get(current, state, 0);
+            path.add(0, puzzle.unpack(state, 0));
+        }
+        return path;
+    }
+}
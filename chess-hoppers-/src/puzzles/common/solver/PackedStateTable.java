@@ -0,0 +1,188 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * An insertion ordered hash set of packed states that also remembers, for every state, the index
+ * of the state it was reached from. States are numbered 0, 1, 2... in the order they were added,
+ * so in a breadth first search the table is also the queue.
+ * Uses open addressing with linear probing over an int[] of state numbers, no objects per state.
+ */
+public class PackedStateTable implements StateTable {
+    /** marks a state with no predecessor **/
+    public static final int NO_PARENT = -1;
+
+    /** longs per state **/
+    private final int width;
+    /** the states back to back, in insertion order **/
+    private long[] states;
+    /** parents[i] is the index of the state state i was reached from **/
+    private int[] parents;
+    /** hash slots holding state index + 1, 0 means empty **/
+    private int[] slots;
+    /** number of states **/
+    private int size;
+
+    /**
+     * creates an empty table
+     * @param width longs per state
+     */
+    public PackedStateTable(int width) {
+        this.width = width;
+        this.states = new long[1024 * width];
+        this.parents = new int[1024];
+        this.slots = new int[2048];
+        this.size = 0;
+    }
+
+    /**
+     * adds a state if it is not in the table yet
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @param parent the index of the state it was reached from, or NO_PARENT
+     * @return the index of the new state, or -(index + 1) of the state already in the table
+     */
+    @Override
+    public int add(long[] src, int offset, int parent) {
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        int mask = slots.length - 1;
+        int slot = hash(src, offset, width) & mask;
+        while (slots[slot] != 0) {
+            if (equalsAt(slots[slot] - 1, src, offset)) {
+                return -slots[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if ((size + 1) * width > states.length) {
+            states = Arrays.copyOf(states, states.length * 2);
+            parents = Arrays.copyOf(parents, parents.length * 2);
+        }
+        System.arraycopy(src, offset, states, size * width, width);
+        parents[size] = parent;
+        slots[slot] = size + 1;
+        return size++;
+    }
+
+    /**
+     * finds a state
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @return the index of the state, or -1 if it is not in the table
+     */
+    @Override
+    public int indexOf(long[] src, int offset) {
+        int mask = slots.length - 1;
+        int slot = hash(src, offset, width) & mask;
+        while (slots[slot] != 0) {
+            if (equalsAt(slots[slot] - 1, src, offset)) {
+                return slots[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @param index a state number
+     * @return the index of the state it was reached from, or NO_PARENT
+     */
+    @Override
+    public int parent(int index) {
+        return parents[index];
+    }
+
+    @Override
+    public void get(int index, long[] dest, int offset) {
+        System.arraycopy(states, index * width, dest, offset, width);
+    }
+
+    /**
+     * @return the parent of every state, trimmed to size()
+     */
+    public int[] copyParents() {
+        return Arrays.copyOf(parents, size);
+    }
+
+    /**
+     * @return the backing array of states, only valid until the next add
+     */
+    public long[] states() {
+        return states;
+    }
+
+    /**
+     * @param index a state number
+     * @return where that state starts in states()
+     */
+    public int offset(int index) {
+        return index * width;
+    }
+
+    /**
+     * @return the number of states in the table
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return longs per state
+     */
+    @Override
+    public int width() {
+        return width;
+    }
+
+    /**
+     * hashes a packed state. also used by the other packed containers so they agree on it
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @param width longs per state
+     * @return the hash of the state
+     */
+    public static int hash(long[] src, int offset, int width) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < width; i++) {
+            h = (h ^ src[offset + i]) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        h *= 0x94D049BB133111EBL;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * compares a stored state with another one
+     * @param index the stored state's number
+     * @param src the array holding the other state
+     * @param offset where the other state starts in src
+     * @return true if they are the same state
+     */
+    private boolean equalsAt(int index, long[] src, int offset) {
+        int start = index * width;
+        for (int i = 0; i < width; i++) {
+            if (states[start + i] != src[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * grows the slot array and puts every state back in
+     * @param capacity the new number of slots, a power of two
+     */
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = hash(states, index * width, width) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+    }
+}
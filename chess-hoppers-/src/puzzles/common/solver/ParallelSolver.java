@@ -0,0 +1,233 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Breadth first solver that expands each layer of the search on a ForkJoinPool.
+ * The states of a layer are split into chunks, every chunk generates its neighbors into its own buffer
+ * and adds them to a ConcurrentPackedSet. Each add is tagged with (parent index, neighbor number), the
+ * same pair Solver would have found the state with first, so when the layer is done every new state
+ * knows the parent and move Solver would have given it.
+ * In deterministic mode (the default) the next layer is then sorted by that pair, which puts it in the
+ * order Solver would have queued it, so the path and the counts printPathList reports are the same as
+ * Solver's. Without it the layer keeps whatever order the threads left it in, the path is still a
+ * shortest one but the counts of the last layer depend on timing.
+ */
+public class ParallelSolver extends CountingSolver {
+    /** states one task expands without splitting further **/
+    private static final int CHUNK = 256;
+
+    /** the config the search starts from **/
+    private final PackedConfiguration startingConfig;
+    /** number of threads to expand a layer with **/
+    private final int parallelism;
+    /** parent index of every state, one array per layer, null for the first layer **/
+    private final List<int[]> layerParents;
+    /** neighbor number of every state in its parent's neighbors, one array per layer **/
+    private final List<char[]> layerMoves;
+    /** whether to put every layer in Solver's order **/
+    private boolean deterministic;
+
+    /**
+     * creates a solver that uses one thread per core
+     * @param startingConfig the initial configuration
+     */
+    public ParallelSolver(PackedConfiguration startingConfig) {
+        this(startingConfig, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * creates a solver for a puzzle
+     * @param startingConfig the initial configuration
+     * @param parallelism number of threads to expand a layer with
+     */
+    public ParallelSolver(PackedConfiguration startingConfig, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.startingConfig = startingConfig;
+        this.parallelism = parallelism;
+        this.layerParents = new ArrayList<>();
+        this.layerMoves = new ArrayList<>();
+        this.deterministic = true;
+    }
+
+    /**
+     * @param deterministic true to get the same path and counts as Solver, false to skip sorting the layers
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * solves the puzzle one layer at a time, each layer in parallel
+     * @param start the configuration to start from
+     * @return the shortest path from start to a solution, or an empty list if there is none
+     */
+    public List<Configuration> solve(PackedConfiguration start) {
+        PackedPuzzle puzzle = start.getPackedPuzzle();
+        int width = puzzle.stateWidth();
+        // puzzles that can't revisit an earlier layer only need to dedupe inside the layer being built
+        boolean layered = puzzle instanceof LayeredPuzzle;
+        layerParents.clear();
+        layerMoves.clear();
+
+        long[] packedStart = new long[width];
+        start.pack(packedStart, 0);
+        ConcurrentPackedSet visited = new ConcurrentPackedSet(width, parallelism);
+        visited.add(packedStart, 0, 0L);
+        visited.drain(new long[width], new long[1]);
+        long[] current = packedStart.clone();
+        int size = 1;
+        layerParents.add(null);
+        layerMoves.add(null);
+        totalConfigs++;
+        uniqueConfigs++;
+        events.started(totalConfigs, uniqueConfigs);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (long round = 1; size > 0; round++) {
+                // Solver stops at the first solution it dequeues, so only the states before it get expanded
+                int solution = -1;
+                for (int index = 0; index < size && solution < 0; index++) {
+                    if (puzzle.isSolution(current, index * width)) {
+                        solution = index;
+                    }
+                }
+                int expand = solution < 0 ? size : solution;
+
+                if (layered) {
+                    visited = new ConcurrentPackedSet(width, parallelism);
+                }
+                LongAdder generated = new LongAdder();
+                pool.invoke(new Expand(puzzle, current, 0, expand, round << ConcurrentPackedSet.ROUND_SHIFT,
+                        visited, generated));
+                totalConfigs += generated.intValue();
+                int fresh = visited.freshSize();
+                uniqueConfigs += fresh;
+                int depth = layerParents.size() - 1;
+                events.layerDone(depth, expand, totalConfigs, uniqueConfigs);
+
+                if (solution >= 0) {
+                    return events.ended(LayerPath.replay(puzzle, packedStart, layerParents, layerMoves, depth,
+                            solution), totalConfigs, uniqueConfigs);
+                }
+                current = nextLayer(visited, width, fresh);
+                size = fresh;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return events.ended(new LinkedList<>(), totalConfigs, uniqueConfigs);
+    }
+
+    /**
+     * takes the states added in the last round out of the set and records how each one was reached
+     * @param visited the set the last round added to
+     * @param width longs per state
+     * @param fresh number of states added in the last round
+     * @return the states of the next layer back to back
+     */
+    private long[] nextLayer(ConcurrentPackedSet visited, int width, int fresh) {
+        long[] drained = new long[fresh * width];
+        long[] sequences = new long[fresh];
+        visited.drain(drained, sequences);
+
+        long[] layer = drained;
+        long[] order = sequences;
+        if (deterministic) {
+            // every sequence number is a distinct (parent, neighbor) pair, so each state's rank is where
+            // its number lands in the sorted copy
+            order = sequences.clone();
+            Arrays.parallelSort(order);
+            layer = new long[drained.length];
+            for (int i = 0; i < fresh; i++) {
+                int rank = Arrays.binarySearch(order, sequences[i]);
+                System.arraycopy(drained, i * width, layer, rank * width, width);
+            }
+        }
+        int[] parents = new int[fresh];
+        char[] moves = new char[fresh];
+        for (int i = 0; i < fresh; i++) {
+            parents[i] = (int) ((order[i] >>> 16) & Integer.MAX_VALUE);
+            moves[i] = (char) order[i];
+        }
+        layerParents.add(parents);
+        layerMoves.add(moves);
+        return layer;
+    }
+
+    /**
+     * expands a range of one layer, splitting it in half until it is small enough
+     */
+    private static class Expand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        /** the packed rules **/
+        private final PackedPuzzle puzzle;
+        /** the states of the layer back to back **/
+        private final long[] layer;
+        /** first state to expand **/
+        private final int from;
+        /** one past the last state to expand **/
+        private final int to;
+        /** the round in the top bits of the sequence numbers **/
+        private final long round;
+        /** the set to add the neighbors to **/
+        private final ConcurrentPackedSet visited;
+        /** number of neighbors generated, including duplicates **/
+        private final LongAdder generated;
+
+        /**
+         * @param puzzle the packed rules
+         * @param layer the states of the layer back to back
+         * @param from first state to expand
+         * @param to one past the last state to expand
+         * @param round the round in the top bits of the sequence numbers
+         * @param visited the set to add the neighbors to
+         * @param generated counts the neighbors generated
+         */
+        Expand(PackedPuzzle puzzle, long[] layer, int from, int to, long round, ConcurrentPackedSet visited,
+               LongAdder generated) {
+            this.puzzle = puzzle;
+            this.layer = layer;
+            this.from = from;
+            this.to = to;
+            this.round = round;
+            this.visited = visited;
+            this.generated = generated;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Expand(puzzle, layer, from, middle, round, visited, generated),
+                        new Expand(puzzle, layer, middle, to, round, visited, generated));
+                return;
+            }
+            int width = puzzle.stateWidth();
+            PackedBuffer neighbors = new PackedBuffer(width);
+            int count = 0;
+            for (int index = from; index < to; index++) {
+                neighbors.clear();
+                puzzle.neighbors(layer, index * width, neighbors);
+                if (neighbors.size() > Character.MAX_VALUE) {
+                    throw new IllegalStateException("too many neighbors to number: " + neighbors.size());
+                }
+                long parent = round | (long) index << 16;
+                for (int i = 0; i < neighbors.size(); i++) {
+                    visited.add(neighbors.array(), neighbors.offset(i), parent | i);
+                }
+                count += neighbors.size();
+            }
+            generated.add(count);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * A binary min heap of int values ordered by long priorities, kept in two primitive arrays so adding
+ * and polling never box or allocate apart from growing. Values with equal priorities come out in no
+ * particular order, callers that care fold a tie breaker into the low bits of the priority.
+ */
+public class PrimitivePriorityQueue {
+    /** priority of every entry, in heap order **/
+    private long[] priorities;
+    /** value of every entry, in heap order **/
+    private int[] values;
+    /** number of entries **/
+    private int size;
+
+    /**
+     * creates an empty queue
+     */
+    public PrimitivePriorityQueue() {
+        this.priorities = new long[64];
+        this.values = new int[64];
+        this.size = 0;
+    }
+
+    /**
+     * adds a value
+     * @param priority its priority, smaller comes out first
+     * @param value the value
+     */
+    public void add(long priority, int value) {
+        if (size == priorities.length) {
+            priorities = Arrays.copyOf(priorities, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        // sift up from the new leaf
+        int child = size++;
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            priorities[child] = priorities[parent];
+            values[child] = values[parent];
+            child = parent;
+        }
+        priorities[child] = priority;
+        values[child] = value;
+    }
+
+    /**
+     * @return the smallest priority in the queue, only valid when it isn't empty
+     */
+    public long peekPriority() {
+        return priorities[0];
+    }
+
+    /**
+     * removes the entry with the smallest priority
+     * @return its value
+     */
+    public int poll() {
+        if (size == 0) {
+            throw new IllegalStateException("queue is empty");
+        }
+        int top = values[0];
+        size--;
+        long priority = priorities[size];
+        int value = values[size];
+        // sift the last leaf down from the root
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            priorities[parent] = priorities[child];
+            values[parent] = values[child];
+            parent = child;
+        }
+        priorities[parent] = priority;
+        values[parent] = value;
+        return top;
+    }
+
+    /**
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if there are no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * removes every entry, keeping the allocated space
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,25 @@
+package puzzles.common.solver;
+
+/**
+ * Packed rules whose moves can be followed backwards and that have exactly one solution, like Strings
+ * where the goal is one known string. BidirectionalSolver searches forwards from the start with
+ * neighbors and backwards from the goal with predecessors until the two meet.
+ */
+public interface ReversiblePuzzle extends PackedPuzzle {
+
+    /**
+     * appends every state that has this state as one of its neighbors
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @param out the buffer to append the predecessors to
+     */
+    void predecessors(long[] states, int offset, PackedBuffer out);
+
+    /**
+     * writes the one solution state
+     * @param dest the array to write to
+     * @param offset where the state starts in dest
+     * @return false if there is no solution that can be reached, dest is left alone then
+     */
+    boolean packGoal(long[] dest, int offset);
+}
@@ -0,0 +1,118 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The tree a search grows, kept as two parallel primitive arrays instead of a map from every config to
+ * the config it was reached from. Node i has the index of its parent and a one byte move code, which of
+ * the parent's neighbors it is, so a node costs five bytes and holds on to no state at all.
+ * The states on a path are made again when they are needed by replaying the moves from the start.
+ * Node 0 is the start.
+ */
+public class SearchTree {
+    /** the parent of the start **/
+    public static final int NO_PARENT = -1;
+    /** most neighbors a config can have and still be numbered with one byte **/
+    public static final int MAX_MOVES = 256;
+
+    /** the parent of every node **/
+    private int[] parents;
+    /** which of its parent's neighbors every node is, as an unsigned byte **/
+    private byte[] moves;
+    /** number of nodes **/
+    private int size;
+
+    /**
+     * creates a tree holding only the start
+     */
+    public SearchTree() {
+        this.parents = new int[64];
+        this.moves = new byte[64];
+        this.parents[0] = NO_PARENT;
+        this.size = 1;
+    }
+
+    /**
+     * adds a node
+     * @param parent the node it was reached from
+     * @param move which of the parent's neighbors it is, counting from 0
+     * @return the index of the new node
+     */
+    public int add(int parent, int move) {
+        if (parent < 0 || parent >= size) {
+            throw new IllegalArgumentException("no such node: " + parent);
+        }
+        if (move < 0 || move >= MAX_MOVES) {
+            throw new IllegalArgumentException("move doesn't fit in a byte: " + move);
+        }
+        if (size == parents.length) {
+            parents = Arrays.copyOf(parents, size * 2);
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        parents[size] = parent;
+        moves[size] = (byte) move;
+        return size++;
+    }
+
+    /**
+     * @param node a node
+     * @return the node it was reached from, or NO_PARENT for the start
+     */
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * @param node a node other than the start
+     * @return which of its parent's neighbors it is
+     */
+    public int move(int node) {
+        return moves[node] & 0xFF;
+    }
+
+    /**
+     * @return the number of nodes, the start included
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param node a node
+     * @return the moves that lead from the start to the node, in order
+     */
+    public int[] movesTo(int node) {
+        int depth = 0;
+        for (int current = node; parents[current] != NO_PARENT; current = parents[current]) {
+            depth++;
+        }
+        int[] taken = new int[depth];
+        for (int current = node; parents[current] != NO_PARENT; current = parents[current]) {
+            taken[--depth] = move(current);
+        }
+        return taken;
+    }
+
+    /**
+     * replays the moves to a node from the start
+     * @param puzzle the packed rules
+     * @param packedStart the packed state of the start node
+     * @param node the node to go to
+     * @return the configs from the start to the node
+     */
+    public List<Configuration> path(PackedPuzzle puzzle, long[] packedStart, int node) {
+        List<Configuration> path = new LinkedList<>();
+        long[] state = packedStart.clone();
+        PackedBuffer neighbors = new PackedBuffer(state.length);
+        path.add(puzzle.unpack(state, 0));
+        for (int move : movesTo(node)) {
+            neighbors.clear();
+            puzzle.neighbors(state, 0, neighbors);
+            System.arraycopy(neighbors.array(), neighbors.offset(move), state, 0, state.length);
+            path.add(puzzle.unpack(state, 0));
+        }
+        return path;
+    }
+}
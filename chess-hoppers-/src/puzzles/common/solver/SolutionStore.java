@@ -0,0 +1,494 @@
+package puzzles.common.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solutions kept on disk between runs, so a board that was solved once, by the command line, a PTUI
+ * or a GUI hint, is a lookup the next time.
+ * The file is memory mapped and has a fixed number of 128 byte entries, so it never grows past the size
+ * it was made with. An entry holds a 64 bit fingerprint of the board it starts from and a second 64 bit
+ * hash of it made a different way, the path as one byte neighbor numbers, the configs the solve generated,
+ * whether they are the counts of a breadth first search and a checksum. A fingerprint picks a bucket of
+ * WAYS entries, and when the bucket is full the entry used longest ago is replaced.
+ * Several processes can use the same file: every read and write of a bucket holds a file lock on the
+ * bytes of that bucket, and every process maps the same pages. Within one process there is one store
+ * per file, see open.
+ * An entry is only handed out for a board with both of its hashes, and a path is replayed from the board
+ * first and must end on a solution, so a corrupt entry or two boards with the same fingerprint give a
+ * miss, never a wrong path or a wrong NO_SOLUTION.
+ * Hints solve with whatever finds a path fastest, so what they store is only handed to callers that
+ * don't print the counts, and never replaces what a breadth first search stored.
+ */
+public class SolutionStore {
+    /** system property with the file of the default store **/
+    public static final String PATH_PROPERTY = "puzzles.solutions";
+    /** entries of a store made by openDefault **/
+    public static final int DEFAULT_ENTRIES = 1 << 13;
+    /** entries a fingerprint can go in **/
+    public static final int WAYS = 8;
+    /** most moves a stored path can have **/
+    public static final int MAX_MOVES = 85;
+
+    /** first long of every store file **/
+    private static final long MAGIC = 0x484F505053544F52L;
+    /** layout of the file, bumped when it changes **/
+    private static final int VERSION = 2;
+    /** bytes before the first entry **/
+    private static final int HEADER_BYTES = 64;
+    /** bytes per entry **/
+    private static final int ENTRY_BYTES = 128;
+    /** where the parts of an entry start **/
+    private static final int FINGERPRINT = 0, VERIFIER = 8, LAST_USED = 16, TOTAL = 24, UNIQUE = 28, LENGTH = 32,
+            FLAGS = 34, MOVES = 35, CHECKSUM = ENTRY_BYTES - 8;
+    /** flag of an entry whose counts are those of a breadth first search **/
+    private static final byte BREADTH_FIRST = 1;
+    /** length of an entry for a board with no solution **/
+    private static final short NO_SOLUTION = -1;
+
+    /** the open stores of this process, by file **/
+    private static final Map<Path, SolutionStore> OPEN = new HashMap<>();
+    /** the store openDefault gives out, null until it was asked for **/
+    private static SolutionStore defaultStore;
+    /** true once openDefault was tried **/
+    private static boolean defaultOpened;
+
+    /** the file, held open for its locks **/
+    private final FileChannel channel;
+    /** the whole file **/
+    private final MappedByteBuffer map;
+    /** number of buckets **/
+    private final int buckets;
+
+    /**
+     * maps a store file, making it if it doesn't exist
+     * @param file the store file
+     * @param entries how many entries a new file has room for, an existing file keeps its own
+     * @throws IOException if the file can't be made or read, or isn't a store
+     */
+    private SolutionStore(Path file, int entries) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        FileLock lock = channel.lock(0, HEADER_BYTES, false);
+        try {
+            if (channel.size() == 0) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+                header.putLong(0, MAGIC).putInt(8, VERSION).putInt(12, (entries + WAYS - 1) / WAYS);
+                header.force();
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            if (header.getLong(0) != MAGIC || header.getInt(8) > VERSION || header.getInt(12) <= 0) {
+                channel.close();
+                throw new IOException("not a solution store: " + file);
+            }
+            buckets = header.getInt(12);
+            long size = HEADER_BYTES + (long) buckets * WAYS * ENTRY_BYTES;
+            // mapping past the end grows the file with zeros, which are empty entries
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(8) < VERSION) {
+                // a store from an older version is a cache in the wrong layout, start it over
+                byte[] empty = new byte[ENTRY_BYTES];
+                for (int entry = HEADER_BYTES; entry < size; entry += ENTRY_BYTES) {
+                    map.put(entry, empty);
+                }
+                header.putInt(8, VERSION);
+                map.force();
+                header.force();
+            }
+        } finally {
+            // closing the channel has let go of the lock already
+            if (lock.isValid()) {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * gives the store of a file, mapping it the first time it is asked for
+     * @param file the store file
+     * @param entries how many entries the file has room for if it has to be made
+     * @return the store
+     * @throws UncheckedIOException if the file can't be made or read, or isn't a store
+     */
+    public static synchronized SolutionStore open(Path file, int entries) {
+        if (entries < WAYS) {
+            throw new IllegalArgumentException("a store needs at least " + WAYS + " entries: " + entries);
+        }
+        Path key = file.toAbsolutePath().normalize();
+        SolutionStore store = OPEN.get(key);
+        if (store == null) {
+            try {
+                store = new SolutionStore(key, entries);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            OPEN.put(key, store);
+        }
+        return store;
+    }
+
+    /**
+     * gives the store the command line and the models share, in the file named by the PATH_PROPERTY
+     * system property or in .chess-hoppers/solutions.db in the user's home
+     * @return the store, or null if it can't be opened, then everything is solved from scratch
+     */
+    public static synchronized SolutionStore openDefault() {
+        if (!defaultOpened) {
+            defaultOpened = true;
+            String property = System.getProperty(PATH_PROPERTY);
+            Path file = property != null ? Paths.get(property)
+                    : Paths.get(System.getProperty("user.home"), ".chess-hoppers", "solutions.db");
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                defaultStore = open(file, DEFAULT_ENTRIES);
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Solution store unavailable: " + e.getMessage());
+            }
+        }
+        return defaultStore;
+    }
+
+    /**
+     * a 64 bit fingerprint of a board and the puzzle it belongs to, the same for every config class
+     * that packs to the same state
+     * @param board the board
+     * @return the fingerprint, never 0
+     */
+    public static long fingerprint(PackedConfiguration board) {
+        return hashes(board)[0];
+    }
+
+    /**
+     * hashes a board and the puzzle it belongs to twice, with different multipliers and finishes, so two
+     * boards with the same fingerprint all but never have the same second hash
+     * @param board the board
+     * @return the fingerprint, never 0, and the second hash
+     */
+    private static long[] hashes(PackedConfiguration board) {
+        PackedPuzzle puzzle = board.getPackedPuzzle();
+        long[] state = new long[puzzle.stateWidth()];
+        board.pack(state, 0);
+        long[] hashes = new long[2];
+        // the board as text tells the puzzles apart, its size and its squares
+        String text = puzzle.unpack(state, 0).toString();
+        long[] goal = new long[state.length];
+        boolean reversible = puzzle instanceof ReversiblePuzzle && ((ReversiblePuzzle) puzzle).packGoal(goal, 0);
+        for (int h = 0; h < hashes.length; h++) {
+            long multiplier = h == 0 ? 0x9E3779B97F4A7C15L : 0xC2B2AE3D27D4EB4FL;
+            long hash = mix(h, puzzle.getClass().getName().hashCode(), multiplier);
+            for (int i = 0; i < text.length(); i++) {
+                hash = mix(hash, text.charAt(i), multiplier);
+            }
+            for (long word : state) {
+                hash = mix(hash, word, multiplier);
+            }
+            if (reversible) {
+                for (long word : goal) {
+                    hash = mix(hash, word, multiplier);
+                }
+            }
+            hash ^= hash >>> 33;
+            hash *= h == 0 ? 0xFF51AFD7ED558CCDL : 0xC4CEB9FE1A85EC53L;
+            hash ^= hash >>> 33;
+            hashes[h] = hash;
+        }
+        if (hashes[0] == 0) {
+            hashes[0] = 1;
+        }
+        return hashes;
+    }
+
+    /**
+     * looks a board up, whatever solve stored it
+     * @param board the board to look up
+     * @return the stored path from the board and the stats of the solve that found it, SOLVED or
+     *         NO_SOLUTION, or null if the board isn't stored
+     */
+    public SolveHandle.Result get(PackedConfiguration board) {
+        return get(board, false);
+    }
+
+    /**
+     * looks a board up
+     * @param board the board to look up
+     * @param breadthFirstOnly true to only take what a breadth first search stored, for callers that
+     *                         print the counts
+     * @return the stored path from the board and the stats of the solve that found it, SOLVED or
+     *         NO_SOLUTION, or null if the board isn't stored
+     */
+    public synchronized SolveHandle.Result get(PackedConfiguration board, boolean breadthFirstOnly) {
+        long[] hashes = hashes(board);
+        int bucket = bucketOf(hashes[0]);
+        byte[] moves;
+        int total;
+        int unique;
+        try {
+            FileLock lock = lockBucket(bucket);
+            try {
+                int entry = find(bucket, hashes[0]);
+                if (entry < 0 || checksum(entry) != map.getLong(entry + CHECKSUM)
+                        || map.getLong(entry + VERIFIER) != hashes[1]
+                        || (breadthFirstOnly && (map.get(entry + FLAGS) & BREADTH_FIRST) == 0)) {
+                    return null;
+                }
+                map.putLong(entry + LAST_USED, System.currentTimeMillis());
+                int length = map.getShort(entry + LENGTH);
+                moves = new byte[Math.max(0, length)];
+                map.get(entry + MOVES, moves);
+                total = map.getInt(entry + TOTAL);
+                unique = map.getInt(entry + UNIQUE);
+                if (length == NO_SOLUTION) {
+                    return new SolveHandle.Result(SolveOutcome.NO_SOLUTION, new LinkedList<>(), total, unique);
+                }
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Configuration> path = replay(board, moves);
+        return path == null ? null : new SolveHandle.Result(SolveOutcome.SOLVED, path, total, unique);
+    }
+
+    /**
+     * stores what a solve of a board found, replacing the entry used longest ago in its bucket
+     * @param board the board the solve started from
+     * @param path the path found, empty if there is no solution
+     * @param totalConfigs configs the solve generated, including duplicates
+     * @param uniqueConfigs distinct configs the solve saw
+     * @param breadthFirst true if the counts are those of a breadth first search, the ones the command
+     *                     line prints, false for any other solve, which never replaces a breadth first one
+     * @return false if the path doesn't fit in an entry or a breadth first solve of the board is stored,
+     *         and it wasn't stored
+     */
+    public synchronized boolean put(PackedConfiguration board, List<Configuration> path, int totalConfigs,
+                                    int uniqueConfigs, boolean breadthFirst) {
+        byte[] moves = path.isEmpty() ? new byte[0] : movesOf(board.getPackedPuzzle(), path);
+        if (moves == null) {
+            return false;
+        }
+        long[] hashes = hashes(board);
+        int bucket = bucketOf(hashes[0]);
+        try {
+            FileLock lock = lockBucket(bucket);
+            try {
+                int entry = find(bucket, hashes[0]);
+                if (entry >= 0 && !breadthFirst && map.getLong(entry + VERIFIER) == hashes[1]
+                        && (map.get(entry + FLAGS) & BREADTH_FIRST) != 0
+                        && checksum(entry) == map.getLong(entry + CHECKSUM)) {
+                    return false;
+                }
+                if (entry < 0) {
+                    entry = leastRecentlyUsed(bucket);
+                }
+                // zeros first so a half written entry fails its checksum
+                map.putLong(entry + CHECKSUM, 0);
+                map.putLong(entry + FINGERPRINT, hashes[0]);
+                map.putLong(entry + VERIFIER, hashes[1]);
+                map.putLong(entry + LAST_USED, System.currentTimeMillis());
+                map.putInt(entry + TOTAL, totalConfigs);
+                map.putInt(entry + UNIQUE, uniqueConfigs);
+                map.putShort(entry + LENGTH, path.isEmpty() ? NO_SOLUTION : (short) moves.length);
+                map.put(entry + FLAGS, breadthFirst ? BREADTH_FIRST : 0);
+                map.put(entry + MOVES, moves);
+                map.putLong(entry + CHECKSUM, checksum(entry));
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * stores what a budgeted solve found, unless it was stopped before it knew the answer
+     * @param board the board the solve started from
+     * @param result what the solve found
+     * @param breadthFirst true if the counts are those of a breadth first search, see put
+     * @return false if the result wasn't stored
+     */
+    public boolean put(PackedConfiguration board, SolveHandle.Result result, boolean breadthFirst) {
+        if (result.getOutcome() != SolveOutcome.SOLVED && result.getOutcome() != SolveOutcome.NO_SOLUTION) {
+            return false;
+        }
+        return put(board, result.getPath(), result.getTotalConfigs(), result.getUniqueConfigs(), breadthFirst);
+    }
+
+    /**
+     * @return how many boards the store has room for
+     */
+    public int capacity() {
+        return buckets * WAYS;
+    }
+
+    /**
+     * @param hash the hash so far
+     * @param value the value to add to it
+     * @return the new hash
+     */
+    private static long mix(long hash, long value) {
+        return mix(hash, value, 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * @param hash the hash so far
+     * @param value the value to add to it
+     * @param multiplier an odd constant, a different one makes a different hash
+     * @return the new hash
+     */
+    private static long mix(long hash, long value, long multiplier) {
+        return (hash ^ value) * multiplier + (hash >>> 29);
+    }
+
+    /**
+     * @param fingerprint a board's fingerprint
+     * @return the bucket it goes in
+     */
+    private int bucketOf(long fingerprint) {
+        return (int) Long.remainderUnsigned(fingerprint, buckets);
+    }
+
+    /**
+     * @param bucket a bucket
+     * @return a lock on the bytes of the bucket, shutting out other processes
+     * @throws IOException if the lock can't be taken
+     */
+    private FileLock lockBucket(int bucket) throws IOException {
+        return channel.lock(HEADER_BYTES + (long) bucket * WAYS * ENTRY_BYTES, (long) WAYS * ENTRY_BYTES, false);
+    }
+
+    /**
+     * @param bucket a bucket
+     * @param fingerprint a board's fingerprint
+     * @return the position of the board's entry in the file, or -1 if it isn't in the bucket
+     */
+    private int find(int bucket, long fingerprint) {
+        for (int way = 0; way < WAYS; way++) {
+            int entry = entryAt(bucket, way);
+            if (map.getLong(entry + FINGERPRINT) == fingerprint) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param bucket a bucket
+     * @return the position of an empty entry of the bucket, or else of the one used longest ago
+     */
+    private int leastRecentlyUsed(int bucket) {
+        int oldest = entryAt(bucket, 0);
+        for (int way = 0; way < WAYS; way++) {
+            int entry = entryAt(bucket, way);
+            if (map.getLong(entry + FINGERPRINT) == 0) {
+                return entry;
+            }
+            if (map.getLong(entry + LAST_USED) < map.getLong(oldest + LAST_USED)) {
+                oldest = entry;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * @param bucket a bucket
+     * @param way which of its entries
+     * @return the position of the entry in the file
+     */
+    private static int entryAt(int bucket, int way) {
+        return HEADER_BYTES + (bucket * WAYS + way) * ENTRY_BYTES;
+    }
+
+    /**
+     * @param entry the position of an entry
+     * @return the checksum of everything in it but the time it was last used
+     */
+    private long checksum(int entry) {
+        long hash = mix(map.getLong(entry + FINGERPRINT), map.getLong(entry + VERIFIER));
+        hash = mix(hash, map.getInt(entry + TOTAL));
+        hash = mix(hash, map.getInt(entry + UNIQUE));
+        hash = mix(hash, map.getShort(entry + LENGTH));
+        for (int i = FLAGS; i < CHECKSUM; i++) {
+            hash = mix(hash, map.get(entry + i));
+        }
+        return hash;
+    }
+
+    /**
+     * turns a path into the neighbor numbers that make it
+     * @param puzzle the packed rules
+     * @param path the path, every config of it a PackedConfiguration
+     * @return the neighbor number of every move, or null if the path can't be stored
+     */
+    private static byte[] movesOf(PackedPuzzle puzzle, List<Configuration> path) {
+        if (path.size() - 1 > MAX_MOVES) {
+            return null;
+        }
+        int width = puzzle.stateWidth();
+        byte[] moves = new byte[path.size() - 1];
+        long[] state = new long[width];
+        long[] next = new long[width];
+        PackedBuffer neighbors = new PackedBuffer(width);
+        ((PackedConfiguration) path.get(0)).pack(state, 0);
+        for (int step = 0; step < moves.length; step++) {
+            ((PackedConfiguration) path.get(step + 1)).pack(next, 0);
+            neighbors.clear();
+            puzzle.neighbors(state, 0, neighbors);
+            int move = 0;
+            while (move < neighbors.size() && !Arrays.equals(neighbors.array(), neighbors.offset(move),
+                    neighbors.offset(move) + width, next, 0, width)) {
+                move++;
+            }
+            if (move >= SearchTree.MAX_MOVES || move == neighbors.size()) {
+                return null;
+            }
+            moves[step] = (byte) move;
+            System.arraycopy(next, 0, state, 0, width);
+        }
+        return moves;
+    }
+
+    /**
+     * makes the path of stored neighbor numbers from a board
+     * @param board the board the path starts from
+     * @param moves the neighbor number of every move
+     * @return the path, or null if the moves don't lead to a solution from the board
+     */
+    private static List<Configuration> replay(PackedConfiguration board, byte[] moves) {
+        PackedPuzzle puzzle = board.getPackedPuzzle();
+        int width = puzzle.stateWidth();
+        long[] state = new long[width];
+        board.pack(state, 0);
+        PackedBuffer neighbors = new PackedBuffer(width);
+        List<Configuration> path = new LinkedList<>();
+        path.add(puzzle.unpack(state, 0));
+        for (byte code : moves) {
+            int move = code & 0xFF;
+            neighbors.clear();
+            puzzle.neighbors(state, 0, neighbors);
+            if (move >= neighbors.size()) {
+                return null;
+            }
+            System.arraycopy(neighbors.array(), neighbors.offset(move), state, 0, width);
+            path.add(puzzle.unpack(state, 0));
+        }
+        return puzzle.isSolution(state, 0) ? path : null;
+    }
+}
@@ -0,0 +1,44 @@
+package puzzles.common.solver;
+
+/**
+ * Limits on one solve: how long it may run and how many distinct states it may keep, which is what
+ * a breadth first search's memory grows with. A limit of 0 means no limit.
+ */
+public class SolveBudget {
+    /** no time or state limit **/
+    public static final SolveBudget UNLIMITED = new SolveBudget(0, 0);
+    /** how often progress is reported, in milliseconds **/
+    public static final long PROGRESS_INTERVAL_MILLIS = 250;
+
+    /** the longest the solve may run, in milliseconds **/
+    private final long timeoutMillis;
+    /** the most distinct states the solve may keep **/
+    private final long maxStates;
+
+    /**
+     * creates a budget
+     * @param timeoutMillis the longest the solve may run, in milliseconds, 0 for no limit
+     * @param maxStates the most distinct states the solve may keep, 0 for no limit
+     */
+    public SolveBudget(long timeoutMillis, long maxStates) {
+        if (timeoutMillis < 0 || maxStates < 0) {
+            throw new IllegalArgumentException("limits can't be negative");
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.maxStates = maxStates;
+    }
+
+    /**
+     * @return the longest the solve may run, in milliseconds, 0 for no limit
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * @return the most distinct states the solve may keep, 0 for no limit
+     */
+    public long getMaxStates() {
+        return maxStates;
+    }
+}
@@ -0,0 +1,199 @@
+package puzzles.common.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.util.List;
+
+/**
+ * Reports the progress of one solver, as JFR events and to an optional SolveListener. The solver
+ * passes its running counters once per layer and the per layer numbers are worked out here. When no
+ * recording has the events enabled and there is no listener, a call is a clock read and a few checks,
+ * so it costs nothing next to expanding a layer.
+ * Record with e.g. -XX:StartFlightRecording:filename=solve.jfr and look for the Puzzles category.
+ */
+public class SolveEvents {
+
+    /**
+     * a solve started
+     */
+    @Name("puzzles.SolveStart")
+    @Label("Solve Start")
+    @Category("Puzzles")
+    static class SolveStartEvent extends Event {
+        @Label("Solver")
+        String solver;
+    }
+
+    /**
+     * one depth of the search was expanded
+     */
+    @Name("puzzles.Layer")
+    @Label("Layer Done")
+    @Category("Puzzles")
+    static class LayerEvent extends Event {
+        @Label("Solver")
+        String solver;
+        @Label("Depth")
+        int depth;
+        @Label("Frontier")
+        @Description("States of the layer that were expanded")
+        int frontier;
+        @Label("Generated")
+        long generated;
+        @Label("Unique")
+        long unique;
+        @Label("Duplicate Ratio")
+        double duplicateRatio;
+        @Label("Expansion Rate")
+        @Description("States expanded per second")
+        double expansionRate;
+        @Label("Layer Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    /**
+     * a solve ended, its duration is the whole solve
+     */
+    @Name("puzzles.SolveEnd")
+    @Label("Solve End")
+    @Category("Puzzles")
+    static class SolveEndEvent extends Event {
+        @Label("Solver")
+        String solver;
+        @Label("Solved")
+        boolean solved;
+        @Label("Path Length")
+        int pathLength;
+        @Label("Total Configs")
+        long totalConfigs;
+        @Label("Unique Configs")
+        long uniqueConfigs;
+    }
+
+    /** name the events are reported under **/
+    private final String solver;
+    /** who else is told, null for nobody **/
+    private SolveListener listener;
+    /** the end event, begun when the solve starts so its duration covers the solve **/
+    private SolveEndEvent endEvent;
+    /** when the solve started **/
+    private long solveStart;
+    /** when the current layer started **/
+    private long layerStart;
+    /** the solver's total count when the current layer started **/
+    private long layerTotal;
+    /** the solver's unique count when the current layer started **/
+    private long layerUnique;
+
+    /**
+     * @param solver name to report the events under
+     */
+    public SolveEvents(String solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * @param listener who else to tell, or null for nobody
+     */
+    public void setListener(SolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * a solve started
+     * @param totalConfigs the solver's total count so far
+     * @param uniqueConfigs the solver's unique count so far
+     */
+    public void started(long totalConfigs, long uniqueConfigs) {
+        solveStart = System.nanoTime();
+        layerStart = solveStart;
+        layerTotal = totalConfigs;
+        layerUnique = uniqueConfigs;
+        SolveStartEvent event = new SolveStartEvent();
+        if (event.shouldCommit()) {
+            event.solver = solver;
+            event.commit();
+        }
+        endEvent = new SolveEndEvent();
+        if (endEvent.isEnabled()) {
+            endEvent.begin();
+        } else {
+            endEvent = null;
+        }
+        if (listener != null) {
+            listener.solveStarted(solver);
+        }
+    }
+
+    /**
+     * a layer was expanded
+     * @param depth moves from the start to the states of the layer
+     * @param frontier states of the layer that were expanded
+     * @param totalConfigs the solver's total count now
+     * @param uniqueConfigs the solver's unique count now
+     */
+    public void layerDone(int depth, int frontier, long totalConfigs, long uniqueConfigs) {
+        long now = System.nanoTime();
+        long nanos = now - layerStart;
+        long generated = totalConfigs - layerTotal;
+        long unique = uniqueConfigs - layerUnique;
+        layerStart = now;
+        layerTotal = totalConfigs;
+        layerUnique = uniqueConfigs;
+
+        LayerEvent event = new LayerEvent();
+        boolean commit = event.shouldCommit();
+        if (!commit && listener == null) {
+            return;
+        }
+        double duplicateRatio = generated == 0 ? 0.0 : (double) (generated - unique) / generated;
+        double expansionRate = nanos == 0 ? 0.0 : frontier * 1e9 / nanos;
+        if (commit) {
+            event.solver = solver;
+            event.depth = depth;
+            event.frontier = frontier;
+            event.generated = generated;
+            event.unique = unique;
+            event.duplicateRatio = duplicateRatio;
+            event.expansionRate = expansionRate;
+            event.nanos = nanos;
+            event.commit();
+        }
+        if (listener != null) {
+            listener.layerDone(solver, depth, frontier, generated, unique, duplicateRatio, expansionRate, nanos);
+        }
+    }
+
+    /**
+     * a solve ended
+     * @param path the path the solver found
+     * @param totalConfigs the solver's total count
+     * @param uniqueConfigs the solver's unique count
+     * @return the path, so a solver can end with return events.ended(...)
+     */
+    public List<Configuration> ended(List<Configuration> path, long totalConfigs, long uniqueConfigs) {
+        if (endEvent != null) {
+            endEvent.end();
+            if (endEvent.shouldCommit()) {
+                endEvent.solver = solver;
+                endEvent.solved = !path.isEmpty();
+                endEvent.pathLength = path.size() - 1;
+                endEvent.totalConfigs = totalConfigs;
+                endEvent.uniqueConfigs = uniqueConfigs;
+                endEvent.commit();
+            }
+            endEvent = null;
+        }
+        if (listener != null) {
+            listener.solveEnded(solver, !path.isEmpty(), path.size() - 1, totalConfigs, uniqueConfigs,
+                    System.nanoTime() - solveStart);
+        }
+        return path;
+    }
+}
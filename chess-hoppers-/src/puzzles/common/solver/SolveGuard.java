@@ -0,0 +1,116 @@
+package puzzles.common.solver;
+
+/**
+ * Checked by a solver every few thousand expansions to find out whether it should stop: because it
+ * was cancelled, ran past its deadline or holds too many states. Also passes progress on when it is
+ * due. Cancelling is safe from any thread, everything else is called by the thread running the solve.
+ */
+public class SolveGuard {
+    /** the solvers check in every this many expansions, must be a power of 2 **/
+    public static final int CHECK_INTERVAL = 1024;
+
+    /** the limits to enforce **/
+    private final SolveBudget budget;
+    /** who to report progress to, null for nobody **/
+    private final SolveProgress progress;
+    /** set by cancel **/
+    private volatile boolean cancelled;
+    /** when the solve started **/
+    private long startNanos;
+    /** when progress is next due **/
+    private long nextProgressNanos;
+    /** why the solve was stopped, null if it wasn't **/
+    private SolveOutcome stopReason;
+
+    /**
+     * creates a guard
+     * @param budget the limits to enforce
+     * @param progress who to report progress to, null for nobody
+     */
+    public SolveGuard(SolveBudget budget, SolveProgress progress) {
+        this.budget = budget;
+        this.progress = progress;
+    }
+
+    /**
+     * starts the clock
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        nextProgressNanos = startNanos + SolveBudget.PROGRESS_INTERVAL_MILLIS * 1_000_000L;
+        stopReason = null;
+    }
+
+    /**
+     * asks the solve to stop at its next check
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if cancel was called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @param depth the layer being expanded
+     * @param expanded states expanded so far
+     * @param uniqueStates distinct states seen so far
+     * @return true if the solve should stop now, getStopReason says why
+     */
+    public boolean shouldStop(int depth, long expanded, long uniqueStates) {
+        if (cancelled) {
+            stopReason = SolveOutcome.CANCELLED;
+            return true;
+        }
+        long now = System.nanoTime();
+        long elapsedNanos = now - startNanos;
+        long timeoutNanos = budget.getTimeoutMillis() * 1_000_000L;
+        if ((timeoutNanos > 0 && elapsedNanos >= timeoutNanos)
+                || (budget.getMaxStates() > 0 && uniqueStates >= budget.getMaxStates())) {
+            stopReason = SolveOutcome.BUDGET_EXCEEDED;
+            return true;
+        }
+        if (progress != null && now >= nextProgressNanos) {
+            nextProgressNanos = now + SolveBudget.PROGRESS_INTERVAL_MILLIS * 1_000_000L;
+            progress.progress(depth, expanded, uniqueStates, eta(elapsedNanos, timeoutNanos, uniqueStates));
+        }
+        return false;
+    }
+
+    /**
+     * the sooner of the deadline and the moment the state cap is hit at the rate states came in so far.
+     * the first few states come in at whatever rate setting up the solve allowed, so there is no estimate
+     * before CHECK_INTERVAL of them
+     * @param elapsedNanos time since the start
+     * @param timeoutNanos the time limit, 0 for none
+     * @param uniqueStates distinct states seen so far
+     * @return estimated milliseconds until the budget runs out, -1 if it has no limits or too few states
+     *         have been seen
+     */
+    private long eta(long elapsedNanos, long timeoutNanos, long uniqueStates) {
+        if (uniqueStates < CHECK_INTERVAL) {
+            return -1;
+        }
+        long eta = -1;
+        if (timeoutNanos > 0) {
+            eta = (timeoutNanos - elapsedNanos) / 1_000_000L;
+        }
+        if (budget.getMaxStates() > 0) {
+            double nanosPerState = (double) elapsedNanos / uniqueStates;
+            long toCap = (long) ((budget.getMaxStates() - uniqueStates) * nanosPerState / 1_000_000L);
+            eta = eta < 0 ? toCap : Math.min(eta, toCap);
+        }
+        return eta;
+    }
+
+    /**
+     * @return why the last shouldStop returned true, null if it never did since start
+     */
+    public SolveOutcome getStopReason() {
+        return stopReason;
+    }
+}
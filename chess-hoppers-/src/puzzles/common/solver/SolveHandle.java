@@ -0,0 +1,197 @@
+package puzzles.common.solver;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A solve running in the background under a SolveBudget. The future completes with the outcome when
+ * the search finds a solution, runs out of states to search, runs out of budget or is cancelled.
+ * Cancelling the handle, or the future, stops the search at its next check.
+ * By default the search runs on a LayeredSolver when every move removes a piece, a PackedSolver
+ * otherwise.
+ */
+public class SolveHandle {
+
+    /**
+     * a search that can run under a SolveHandle, checking the guard it is handed as it goes
+     */
+    @FunctionalInterface
+    public interface Search {
+        /**
+         * @param start the configuration to start from
+         * @param guard the started guard to check
+         * @return what was found
+         */
+        Result run(PackedConfiguration start, SolveGuard guard);
+    }
+
+    /**
+     * what a budgeted solve found
+     */
+    public static class Result {
+        /** how the solve ended **/
+        private final SolveOutcome outcome;
+        /** the path to a solution, empty unless the outcome is SOLVED **/
+        private final List<Configuration> path;
+        /** configs generated, including duplicates **/
+        private final int totalConfigs;
+        /** distinct configs seen **/
+        private final int uniqueConfigs;
+
+        /**
+         * @param outcome how the solve ended
+         * @param path the path to a solution
+         * @param totalConfigs configs generated, including duplicates
+         * @param uniqueConfigs distinct configs seen
+         */
+        public Result(SolveOutcome outcome, List<Configuration> path, int totalConfigs, int uniqueConfigs) {
+            this.outcome = outcome;
+            this.path = path;
+            this.totalConfigs = totalConfigs;
+            this.uniqueConfigs = uniqueConfigs;
+        }
+
+        /**
+         * @return how the solve ended
+         */
+        public SolveOutcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * @return the path to a solution, empty unless the outcome is SOLVED
+         */
+        public List<Configuration> getPath() {
+            return path;
+        }
+
+        /**
+         * @return configs generated, including duplicates
+         */
+        public int getTotalConfigs() {
+            return totalConfigs;
+        }
+
+        /**
+         * @return distinct configs seen
+         */
+        public int getUniqueConfigs() {
+            return uniqueConfigs;
+        }
+    }
+
+    /** completes with the result **/
+    private final CompletableFuture<Result> future;
+    /** the guard the search checks **/
+    private final SolveGuard guard;
+
+    /**
+     * @param future completes with the result
+     * @param guard the guard the search checks
+     */
+    private SolveHandle(CompletableFuture<Result> future, SolveGuard guard) {
+        this.future = future;
+        this.guard = guard;
+    }
+
+    /**
+     * starts a solve
+     * @param start the configuration to start from
+     * @param budget the limits of the solve
+     * @param progress told how far the solve has got, null for nobody
+     * @param executor runs the solve
+     * @return the handle of the running solve
+     */
+    public static SolveHandle submit(PackedConfiguration start, SolveBudget budget, SolveProgress progress,
+                                     Executor executor) {
+        return submit(start, budget, progress, executor, SolveHandle::run);
+    }
+
+    /**
+     * starts a solve with a search of the caller's choosing
+     * @param start the configuration to start from
+     * @param budget the limits of the solve
+     * @param progress told how far the solve has got, null for nobody
+     * @param executor runs the solve
+     * @param search the search to run
+     * @return the handle of the running solve
+     */
+    public static SolveHandle submit(PackedConfiguration start, SolveBudget budget, SolveProgress progress,
+                                     Executor executor, Search search) {
+        SolveGuard guard = new SolveGuard(budget, progress);
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                guard.cancel();
+            }
+        });
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                guard.start();
+                future.complete(search.run(start, guard));
+            } catch (Throwable e) {
+                // anything the search throws has to end the future, or whoever waits on it hangs
+                future.completeExceptionally(e);
+            }
+        });
+        return new SolveHandle(future, guard);
+    }
+
+    /**
+     * solves on the calling thread with a breadth first solver
+     * @param start the configuration to start from
+     * @param guard the started guard to check
+     * @return what was found
+     */
+    private static Result run(PackedConfiguration start, SolveGuard guard) {
+        List<Configuration> path;
+        CountingSolver solver;
+        if (start.getPackedPuzzle() instanceof LayeredPuzzle) {
+            LayeredSolver layeredSolver = new LayeredSolver(start);
+            layeredSolver.setGuard(guard);
+            path = layeredSolver.solve(start);
+            solver = layeredSolver;
+        } else {
+            PackedSolver packedSolver = new PackedSolver(start);
+            packedSolver.setGuard(guard);
+            path = packedSolver.solve(start);
+            solver = packedSolver;
+        }
+        SolveOutcome outcome;
+        if (!path.isEmpty()) {
+            outcome = SolveOutcome.SOLVED;
+        } else if (guard.getStopReason() != null) {
+            outcome = guard.getStopReason();
+            path = new LinkedList<>();
+        } else {
+            outcome = SolveOutcome.NO_SOLUTION;
+        }
+        return new Result(outcome, path, solver.getTotalConfigs(), solver.getUniqueConfigs());
+    }
+
+    /**
+     * @return completes with the result, cancelling it stops the search
+     */
+    public CompletableFuture<Result> getFuture() {
+        return future;
+    }
+
+    /**
+     * stops the search at its next check, the future then completes with CANCELLED
+     */
+    public void cancel() {
+        guard.cancel();
+    }
+
+    /**
+     * @return true if the solve has ended, one way or another
+     */
+    public boolean isDone() {
+        return future.isDone();
+    }
+}
@@ -0,0 +1,44 @@
+package puzzles.common.solver;
+
+/**
+ * Gets told how a solve is going: when it starts, every time a layer of the search is done, and when
+ * it ends. The same numbers go to the JFR events in SolveEvents. Calls come from the thread running
+ * the solve, once per layer, never once per state.
+ */
+public interface SolveListener {
+
+    /**
+     * a solve started
+     * @param solver the name of the solver
+     */
+    default void solveStarted(String solver) {
+    }
+
+    /**
+     * every state at one depth has been expanded, or the solve stopped partway through the depth
+     * @param solver the name of the solver
+     * @param depth number of moves from the start to the states of the layer
+     * @param frontier number of states of the layer that were expanded
+     * @param generated neighbors generated by the layer, including duplicates
+     * @param unique neighbors that hadn't been seen before
+     * @param duplicateRatio share of the generated neighbors that were duplicates, 0 to 1
+     * @param expansionRate states expanded per second
+     * @param nanos time spent on the layer
+     */
+    default void layerDone(String solver, int depth, int frontier, long generated, long unique,
+                           double duplicateRatio, double expansionRate, long nanos) {
+    }
+
+    /**
+     * a solve ended
+     * @param solver the name of the solver
+     * @param solved true if a solution was found
+     * @param pathLength number of moves in the solution, -1 if there is none
+     * @param totalConfigs configs generated, including duplicates
+     * @param uniqueConfigs distinct configs seen
+     * @param nanos time spent on the whole solve
+     */
+    default void solveEnded(String solver, boolean solved, int pathLength, long totalConfigs,
+                            long uniqueConfigs, long nanos) {
+    }
+}
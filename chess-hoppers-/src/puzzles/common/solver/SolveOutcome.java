@@ -0,0 +1,15 @@
+package puzzles.common.solver;
+
+/**
+ * How a solve started through a SolveHandle ended.
+ */
+public enum SolveOutcome {
+    /** a path to a solution was found **/
+    SOLVED,
+    /** the whole search space was searched and there is no solution **/
+    NO_SOLUTION,
+    /** the search ran out of time or states before it could tell either way **/
+    BUDGET_EXCEEDED,
+    /** the search was cancelled before it could tell either way **/
+    CANCELLED
+}
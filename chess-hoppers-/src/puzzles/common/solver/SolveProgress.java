@@ -0,0 +1,18 @@
+package puzzles.common.solver;
+
+/**
+ * Gets told how far a solve started through a SolveHandle has got, every
+ * SolveBudget.PROGRESS_INTERVAL_MILLIS or so, on the thread running the solve.
+ */
+@FunctionalInterface
+public interface SolveProgress {
+
+    /**
+     * @param depth the deepest layer reached
+     * @param expanded states expanded so far
+     * @param uniqueStates distinct states seen so far
+     * @param etaMillis estimated milliseconds until the budget runs out at the current rate, -1 if the
+     *                  budget has no limits or fewer than SolveGuard.CHECK_INTERVAL states have been seen
+     */
+    void progress(int depth, long expanded, long uniqueStates, long etaMillis);
+}
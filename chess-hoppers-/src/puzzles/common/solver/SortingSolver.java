@@ -0,0 +1,281 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Breadth first solver that finds duplicates in bulk instead of one hash lookup per neighbor.
+ * A layer's neighbors are only appended to flat long[]s while it is expanded. Then every neighbor gets
+ * a tag, its hash in the high half and its number in the low half, and the tags are sorted with
+ * Arrays.parallelSort, which brings the copies of a state next to each other with the first one made
+ * in front. States seen in earlier layers are kept sorted the same way, so they are dropped by walking
+ * both in one pass. Every pass streams through memory, no pointer is followed per state.
+ * The new layer is put back in the order Solver would queue it by sorting the (parent, neighbor) pair
+ * each state was made with, so the path and the counts are the same as Solver's.
+ * Puzzles that can't revisit an earlier layer (see LayeredPuzzle) don't keep the earlier layers at all.
+ * On one core it is 1.3 to 2.4 times slower than PackedSolver and LayeredSolver, the sorts cost more than
+ * the hash lookups they replace. Whether the parallel sorts win that back on many cores hasn't been
+ * measured, so it is an engine to try, see SolveBenchmark.sortingSolve, not the default.
+ */
+public class SortingSolver extends CountingSolver {
+    /** the config the search starts from **/
+    private final PackedConfiguration startingConfig;
+    /** parent index of every state, one array per layer, null for the first layer **/
+    private final List<int[]> layerParents;
+    /** neighbor number of every state in its parent's neighbors, one array per layer **/
+    private final List<char[]> layerMoves;
+    /** most states held in one layer **/
+    private int widestLayer;
+
+    /** the neighbors of the layer being expanded, back to back **/
+    private long[] candidates;
+    /** parent index << 16 | neighbor number of every neighbor **/
+    private long[] candidateKeys;
+    /** number of neighbors made **/
+    private int candidateCount;
+    /** the states of every earlier layer, in the order of their hashes **/
+    private long[] seen;
+    /** the hash of every state in seen **/
+    private int[] seenHashes;
+    /** number of states in seen **/
+    private int seenSize;
+
+    /**
+     * creates a solver for a puzzle
+     * @param startingConfig the initial configuration
+     */
+    public SortingSolver(PackedConfiguration startingConfig) {
+        this.startingConfig = startingConfig;
+        this.layerParents = new ArrayList<>();
+        this.layerMoves = new ArrayList<>();
+        this.widestLayer = 0;
+    }
+
+    /**
+     * solves the puzzle one layer at a time, removing each layer's duplicates in bulk
+     * @param start the configuration to start from
+     * @return the shortest path from start to a solution, or an empty list if there is none
+     */
+    public List<Configuration> solve(PackedConfiguration start) {
+        PackedPuzzle puzzle = start.getPackedPuzzle();
+        int width = puzzle.stateWidth();
+        boolean layered = puzzle instanceof LayeredPuzzle;
+        PackedBuffer neighbors = new PackedBuffer(width);
+        layerParents.clear();
+        layerMoves.clear();
+
+        long[] packedStart = new long[width];
+        start.pack(packedStart, 0);
+        long[] layer = packedStart.clone();
+        int layerSize = 1;
+        seen = layered ? new long[0] : packedStart.clone();
+        seenHashes = layered ? new int[0] : new int[]{PackedStateTable.hash(packedStart, 0, width)};
+        seenSize = layered ? 0 : 1;
+        layerParents.add(null);
+        layerMoves.add(null);
+        totalConfigs++;
+        uniqueConfigs++;
+        events.started(totalConfigs, uniqueConfigs);
+
+        long expanded = 0;
+        while (layerSize > 0) {
+            widestLayer = Math.max(widestLayer, layerSize);
+            int depth = layerParents.size() - 1;
+            candidates = new long[Math.max(16, layerSize) * width];
+            candidateKeys = new long[Math.max(16, layerSize)];
+            candidateCount = 0;
+            for (int index = 0; index < layerSize; index++) {
+                if (guard != null && (expanded++ & (SolveGuard.CHECK_INTERVAL - 1)) == 0
+                        && guard.shouldStop(depth, expanded, uniqueConfigs)) {
+                    events.layerDone(depth, index, totalConfigs, uniqueConfigs);
+                    return events.ended(new LinkedList<>(), totalConfigs, uniqueConfigs);
+                }
+                if (puzzle.isSolution(layer, index * width)) {
+                    // Solver has already put the neighbors made so far in its visited set, count them the same
+                    uniqueConfigs += firstCopies(width).length;
+                    events.layerDone(depth, index, totalConfigs, uniqueConfigs);
+                    return events.ended(LayerPath.replay(puzzle, packedStart, layerParents, layerMoves, depth, index),
+                            totalConfigs, uniqueConfigs);
+                }
+                neighbors.clear();
+                puzzle.neighbors(layer, index * width, neighbors);
+                if (neighbors.size() > Character.MAX_VALUE) {
+                    throw new IllegalStateException("too many neighbors to number: " + neighbors.size());
+                }
+                for (int i = 0; i < neighbors.size(); i++) {
+                    totalConfigs++;
+                    addCandidate(neighbors.array(), neighbors.offset(i), width, (long) index << 16 | i);
+                }
+            }
+            events.layerDone(depth, layerSize, totalConfigs, uniqueConfigs);
+
+            long[] tags = firstCopies(width);
+            uniqueConfigs += tags.length;
+            layer = nextLayer(tags, width);
+            layerSize = tags.length;
+            if (!layered) {
+                mergeSeen(tags, width);
+            }
+        }
+        candidates = null;
+        candidateKeys = null;
+        seen = null;
+        seenHashes = null;
+        return events.ended(new LinkedList<>(), totalConfigs, uniqueConfigs);
+    }
+
+    /**
+     * @return the most states that were held in one layer
+     */
+    public int getWidestLayer() {
+        return widestLayer;
+    }
+
+    /**
+     * appends a neighbor of the layer being expanded
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @param width longs per state
+     * @param key parent index << 16 | neighbor number
+     */
+    private void addCandidate(long[] src, int offset, int width, long key) {
+        if (candidateCount == candidateKeys.length) {
+            candidates = Arrays.copyOf(candidates, candidates.length * 2);
+            candidateKeys = Arrays.copyOf(candidateKeys, candidateKeys.length * 2);
+        }
+        System.arraycopy(src, offset, candidates, candidateCount * width, width);
+        candidateKeys[candidateCount++] = key;
+    }
+
+    /**
+     * sorts the neighbors by hash and keeps the first copy of every state not seen in an earlier layer
+     * @param width longs per state
+     * @return the tag, hash << 32 | neighbor number, of every state kept, in the order of their hashes
+     */
+    private long[] firstCopies(int width) {
+        long[] tags = new long[candidateCount];
+        for (int i = 0; i < candidateCount; i++) {
+            tags[i] = (long) PackedStateTable.hash(candidates, i * width, width) << 32 | i;
+        }
+        // the neighbor numbers break ties, so the copies of a state end up in the order they were made
+        Arrays.parallelSort(tags);
+
+        int kept = 0;
+        int seenAt = 0;
+        for (int blockStart = 0; blockStart < tags.length; ) {
+            int hash = (int) (tags[blockStart] >> 32);
+            int blockEnd = blockStart + 1;
+            while (blockEnd < tags.length && (int) (tags[blockEnd] >> 32) == hash) {
+                blockEnd++;
+            }
+            while (seenAt < seenSize && seenHashes[seenAt] < hash) {
+                seenAt++;
+            }
+            int seenEnd = seenAt;
+            while (seenEnd < seenSize && seenHashes[seenEnd] == hash) {
+                seenEnd++;
+            }
+            // a block holds the copies of one state, and now and then a different state with the same hash
+            int blockKept = kept;
+            for (int t = blockStart; t < blockEnd; t++) {
+                int offset = (int) tags[t] * width;
+                if (!contains(tags, blockKept, kept, width, offset) && !seenContains(seenAt, seenEnd, width, offset)) {
+                    tags[kept++] = tags[t];
+                }
+            }
+            blockStart = blockEnd;
+        }
+        return Arrays.copyOf(tags, kept);
+    }
+
+    /**
+     * @param tags tags of the states kept so far
+     * @param from first tag to look at
+     * @param to one past the last tag to look at
+     * @param width longs per state
+     * @param offset where the neighbor to look for starts in candidates
+     * @return true if one of the tags is for the same state
+     */
+    private boolean contains(long[] tags, int from, int to, int width, int offset) {
+        for (int t = from; t < to; t++) {
+            if (Arrays.equals(candidates, (int) tags[t] * width, (int) tags[t] * width + width,
+                    candidates, offset, offset + width)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param from first state of seen to look at
+     * @param to one past the last state to look at
+     * @param width longs per state
+     * @param offset where the neighbor to look for starts in candidates
+     * @return true if one of those states of seen is the same state
+     */
+    private boolean seenContains(int from, int to, int width, int offset) {
+        for (int s = from; s < to; s++) {
+            if (Arrays.equals(seen, s * width, s * width + width, candidates, offset, offset + width)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * puts the kept neighbors in the order Solver would queue them and records how each one was reached
+     * @param tags the tags of the kept neighbors
+     * @param width longs per state
+     * @return the states of the next layer back to back
+     */
+    private long[] nextLayer(long[] tags, int width) {
+        int fresh = tags.length;
+        long[] keys = new long[fresh];
+        for (int i = 0; i < fresh; i++) {
+            keys[i] = candidateKeys[(int) tags[i]];
+        }
+        // every key is a distinct (parent, neighbor) pair, so each state's rank is where its key lands
+        long[] order = keys.clone();
+        Arrays.parallelSort(order);
+        long[] layer = new long[fresh * width];
+        for (int i = 0; i < fresh; i++) {
+            int rank = Arrays.binarySearch(order, keys[i]);
+            System.arraycopy(candidates, (int) tags[i] * width, layer, rank * width, width);
+        }
+        int[] parents = new int[fresh];
+        char[] moves = new char[fresh];
+        for (int i = 0; i < fresh; i++) {
+            parents[i] = (int) (order[i] >>> 16);
+            moves[i] = (char) order[i];
+        }
+        layerParents.add(parents);
+        layerMoves.add(moves);
+        return layer;
+    }
+
+    /**
+     * merges the kept neighbors into the states of earlier layers, both are in the order of their hashes
+     * @param tags the tags of the kept neighbors
+     * @param width longs per state
+     */
+    private void mergeSeen(long[] tags, int width) {
+        long[] merged = new long[(seenSize + tags.length) * width];
+        int[] mergedHashes = new int[seenSize + tags.length];
+        int s = 0;
+        int t = 0;
+        for (int m = 0; m < mergedHashes.length; m++) {
+            if (t == tags.length || (s < seenSize && seenHashes[s] <= (int) (tags[t] >> 32))) {
+                System.arraycopy(seen, s * width, merged, m * width, width);
+                mergedHashes[m] = seenHashes[s++];
+            } else {
+                System.arraycopy(candidates, (int) tags[t] * width, merged, m * width, width);
+                mergedHashes[m] = (int) (tags[t++] >> 32);
+            }
+        }
+        seen = merged;
+        seenHashes = mergedHashes;
+        seenSize = mergedHashes.length;
+    }
+}
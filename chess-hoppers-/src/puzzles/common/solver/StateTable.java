@@ -0,0 +1,50 @@
+package puzzles.common.solver;
+
+/**
+ * An insertion ordered set of packed states that remembers, for every state, the index of the state
+ * it was reached from. States are numbered 0, 1, 2... in the order they were added, so in a breadth
+ * first search the table is also the queue. PackedSolver runs on any of them, which is how the same
+ * search is kept on the heap (PackedStateTable) or in direct memory (OffHeapStateTable).
+ */
+public interface StateTable {
+    /**
+     * adds a state if it is not in the table yet
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @param parent the index of the state it was reached from, or PackedStateTable.NO_PARENT
+     * @return the index of the new state, or -(index + 1) of the state already in the table
+     */
+    int add(long[] src, int offset, int parent);
+
+    /**
+     * finds a state
+     * @param src the array holding the state
+     * @param offset where the state starts in src
+     * @return the index of the state, or -1 if it is not in the table
+     */
+    int indexOf(long[] src, int offset);
+
+    /**
+     * copies a state out of the table
+     * @param index a state number
+     * @param dest the array to copy the state to
+     * @param offset where the state starts in dest
+     */
+    void get(int index, long[] dest, int offset);
+
+    /**
+     * @param index a state number
+     * @return the index of the state it was reached from, or PackedStateTable.NO_PARENT
+     */
+    int parent(int index);
+
+    /**
+     * @return the number of states in the table
+     */
+    int size();
+
+    /**
+     * @return longs per state
+     */
+    int width();
+}
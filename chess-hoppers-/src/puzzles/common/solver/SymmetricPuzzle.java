@@ -0,0 +1,25 @@
+package puzzles.common.solver;
+
+/**
+ * Packed rules for a board that looks the same after some rotations or reflections. A symmetry maps
+ * every state to a twin that is solvable in the same number of moves, so a search only has to visit
+ * one state of every group of twins, see CanonicalPuzzle.
+ * Symmetry 0 is always the identity.
+ */
+public interface SymmetricPuzzle extends PackedPuzzle {
+
+    /**
+     * @return number of symmetries of the board, including the identity
+     */
+    int symmetryCount();
+
+    /**
+     * writes the twin of a state under one symmetry
+     * @param symmetry which symmetry, 0 to symmetryCount() - 1
+     * @param src the array holding the state
+     * @param srcOffset where the state starts in src
+     * @param dest the array to write the twin to, not the same state as src
+     * @param destOffset where the twin starts in dest
+     */
+    void transform(int symmetry, long[] src, int srcOffset, long[] dest, int destOffset);
+}
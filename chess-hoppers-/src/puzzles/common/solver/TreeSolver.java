@@ -0,0 +1,120 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Breadth first solver that remembers how each state was reached in a SearchTree instead of a parent
+ * index next to every visited state, and only unpacks the states of the path it returns.
+ * States are expanded one layer at a time in the same order as Solver, so it finds the same path and
+ * reports the same counts. For puzzles whose packed rules are a LayeredPuzzle a state can only be
+ * reached again in its own layer, so once a layer is expanded its states are let go and the tree is all
+ * that is left of it. Other puzzles keep every packed state in the visited table, like PackedSolver,
+ * but still no Configuration until the path is replayed.
+ */
+public class TreeSolver extends CountingSolver {
+    /** the config the search starts from **/
+    private final PackedConfiguration startingConfig;
+    /** most states held in one layer **/
+    private int widestLayer;
+    /** nodes in the last solve's tree **/
+    private int treeSize;
+
+    /**
+     * creates a solver for a puzzle
+     * @param startingConfig the initial configuration
+     */
+    public TreeSolver(PackedConfiguration startingConfig) {
+        this.totalConfigs = 0;
+        this.uniqueConfigs = 0;
+        this.startingConfig = startingConfig;
+        this.widestLayer = 0;
+        this.treeSize = 0;
+    }
+
+    /**
+     * solves the puzzle breadth first
+     * @param start the configuration to start from
+     * @return the shortest path from start to a solution, or an empty list if there is none
+     * @throws IllegalArgumentException if a state has more than SearchTree.MAX_MOVES neighbors
+     */
+    public List<Configuration> solve(PackedConfiguration start) {
+        PackedPuzzle puzzle = start.getPackedPuzzle();
+        int width = puzzle.stateWidth();
+        boolean layered = puzzle instanceof LayeredPuzzle;
+        PackedBuffer neighbors = new PackedBuffer(width);
+        SearchTree tree = new SearchTree();
+        long[] packedStart = new long[width];
+        long[] state = new long[width];
+        start.pack(packedStart, 0);
+
+        // the layer being expanded is the states of current from first on, nodes holds their tree nodes
+        PackedStateTable current = new PackedStateTable(width);
+        current.add(packedStart, 0, PackedStateTable.NO_PARENT);
+        int first = 0;
+        int[] nodes = {0};
+        totalConfigs++;
+        uniqueConfigs++;
+        events.started(totalConfigs, uniqueConfigs);
+
+        int depth = 0;
+        long expanded = 0;
+        while (current.size() > first) {
+            int end = current.size();
+            widestLayer = Math.max(widestLayer, end - first);
+            // a puzzle that can revisit earlier layers adds the next layer to the end of the same table
+            PackedStateTable next = layered ? new PackedStateTable(width) : current;
+            int nextFirst = layered ? 0 : end;
+            int[] nextNodes = new int[Math.max(16, end - first)];
+            for (int index = first; index < end; index++) {
+                if (guard != null && (expanded++ & (SolveGuard.CHECK_INTERVAL - 1)) == 0
+                        && guard.shouldStop(depth, expanded, uniqueConfigs)) {
+                    events.layerDone(depth, index - first, totalConfigs, uniqueConfigs);
+                    treeSize = tree.size();
+                    return events.ended(new LinkedList<>(), totalConfigs, uniqueConfigs);
+                }
+                current.get(index, state, 0);
+                if (puzzle.isSolution(state, 0)) {
+                    events.layerDone(depth, index - first, totalConfigs, uniqueConfigs);
+                    treeSize = tree.size();
+                    return events.ended(tree.path(puzzle, packedStart, nodes[index - first]), totalConfigs,
+                            uniqueConfigs);
+                }
+                neighbors.clear();
+                puzzle.neighbors(state, 0, neighbors);
+                for (int i = 0; i < neighbors.size(); i++) {
+                    totalConfigs++;
+                    int added = next.add(neighbors.array(), neighbors.offset(i), PackedStateTable.NO_PARENT);
+                    if (added >= 0) {
+                        uniqueConfigs++;
+                        if (added - nextFirst == nextNodes.length) {
+                            nextNodes = Arrays.copyOf(nextNodes, nextNodes.length * 2);
+                        }
+                        nextNodes[added - nextFirst] = tree.add(nodes[index - first], i);
+                    }
+                }
+            }
+            events.layerDone(depth++, end - first, totalConfigs, uniqueConfigs);
+            current = next;
+            first = nextFirst;
+            nodes = nextNodes;
+        }
+        treeSize = tree.size();
+        return events.ended(new LinkedList<>(), totalConfigs, uniqueConfigs);
+    }
+
+    /**
+     * @return the most states that were held in one layer
+     */
+    public int getWidestLayer() {
+        return widestLayer;
+    }
+
+    /**
+     * @return the number of nodes the last solve's tree ended up with
+     */
+    public int getTreeSize() {
+        return treeSize;
+    }
+}
@@ -0,0 +1,54 @@
+package puzzles.common.solver;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Helpers for the 64 bit Zobrist keys the board configs cache. A board's key is the XOR of one random
+ * long per (square, piece) pair on it, so a move only has to XOR out the pairs it removes and XOR in
+ * the ones it adds. Keys decide equals before the grids are compared, and every time two keys match
+ * but the grids don't it is counted here, so the counter can be read while the program runs.
+ */
+public class Zobrist {
+    /** seed of the random tables, fixed so a board gets the same key on every run **/
+    private static final long SEED = 0x5DEECE66DL;
+    /** number of equal keys found on different boards **/
+    private static final LongAdder COLLISIONS = new LongAdder();
+
+    /**
+     * makes a table of random keys
+     * @param entries number of keys
+     * @param salt mixed into the seed so different tables don't share keys
+     * @return the keys
+     */
+    public static long[] table(int entries, long salt) {
+        SplittableRandom random = new SplittableRandom(SEED ^ salt);
+        long[] keys = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            keys[i] = random.nextLong();
+        }
+        return keys;
+    }
+
+    /**
+     * @param key a 64 bit key
+     * @return the key folded down to an int for hashCode
+     */
+    public static int fold(long key) {
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * counts one pair of different boards with the same key
+     */
+    public static void recordCollision() {
+        COLLISIONS.increment();
+    }
+
+    /**
+     * @return number of pairs of different boards found with the same key since the program started
+     */
+    public static long getCollisions() {
+        return COLLISIONS.sum();
+    }
+}
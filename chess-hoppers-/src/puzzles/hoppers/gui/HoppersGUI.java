@@ -12,10 +12,14 @@ import puzzles.hoppers.model.HoppersConfig;
 import puzzles.hoppers.model.HoppersModel;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
+import puzzles.common.solver.HintPrefetcher;
+import puzzles.common.solver.SolveHandle;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 /**
  * the GUI part of the Hoppers puzzle
  * @author Andy Zheng Zheng
@@ -55,6 +59,9 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
     private int startRow;
     /** the start column **/
     private int startCol;
+    /** solves the board in the background whenever it changes, so hints are ready when asked for **/
+    private final HintPrefetcher hints = new HintPrefetcher(HoppersModel.HINT_BUDGET,
+            (board, guard) -> model.solveHint(board, guard));
 
     /**
      * initializes the model and gui
@@ -87,6 +94,15 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         stage.setScene(scene);
         stage.setTitle("Hoppers GUI");
         stage.show();
+        hints.prefetch(model.getCurrentConfig());
+    }
+
+    /**
+     * stops the background hint solver when the window closes
+     */
+    @Override
+    public void stop() {
+        hints.shutdown();
     }
 
     /**
@@ -96,8 +112,8 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
     private GridPane makeCenter(){
         from = true;
         GridPane center = new GridPane();
-       int numrows = HoppersConfig.rows;
-       int numcols = HoppersConfig.columns;
+       int numrows = model.getCurrentConfig().getRows();
+       int numcols = model.getCurrentConfig().getColumns();
        for(int row = 0; row <numrows ; row++){
            for(int col = 0; col < numcols; col++){
                int buttonRow = row;
@@ -164,8 +180,19 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
             }
         });
 
-        // set action for hint
-        hint.setOnAction(event -> model.hint());
+        // set action for hint, the solve runs in the background and the move is made back on this thread
+        hint.setOnAction(event -> {
+            HoppersConfig board = model.getCurrentConfig();
+            if(board.isSolution()){
+                model.hint();
+                return;
+            }
+            CompletableFuture<SolveHandle.Result> result = hints.hint(board);
+            if(!result.isDone()){
+                topmsg.setText("Thinking...");
+            }
+            result.thenAcceptAsync(solved -> model.applyHint(board, solved), Platform::runLater);
+        });
         hbox.setAlignment(Pos.CENTER);
         hbox.getChildren().addAll(load,reset,hint);
         return hbox;
@@ -193,7 +220,8 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
             int destCol = buttonCol;
             model.validjump(startRow,startCol,destRow,destCol);
             if(model.canjump) {
-                topmsg.setText("Jumped from (" + startRow + "," + startCol + ") to (" + destRow + "," + destCol + ")");
+                topmsg.setText("Jumped from (" + startRow + "," + startCol + ") to (" + destRow + "," + destCol + ")"
+                        + (model.isDeadEnd() ? ", No Solution From Here!" : ""));
             }
             else{
                 topmsg.setText("Can't jump from (" + startRow + "," + startCol + ") to (" + destRow + "," + destCol + ")");
@@ -218,6 +246,7 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         model = hoppersModel;
         main.setCenter(makeCenter());
         this.stage.sizeToScene();
+        hints.prefetch(model.getCurrentConfig());
         // when a different sized puzzle is loaded
     }
 
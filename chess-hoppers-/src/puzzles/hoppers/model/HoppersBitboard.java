@@ -0,0 +1,143 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.PackedBuffer;
+import puzzles.common.solver.PackedConfiguration;
+import puzzles.common.solver.PackedPuzzle;
+import puzzles.common.solver.PackedStateTable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A Hoppers configuration stored as green and red frog bitmasks over the squares of a HoppersPacking.
+ * Generates the same neighbors as HoppersConfig, but each jump is a couple of mask tests from the
+ * layout's jump table instead of string compares, and a move copies two or four longs instead of the grid.
+ */
+public class HoppersBitboard implements PackedConfiguration {
+    /** the board this config is on **/
+    private final HoppersPacking layout;
+    /** the green frog words followed by the red frog words **/
+    private final long[] state;
+
+    /**
+     * reads a puzzle file
+     * @param filename the file name
+     * @throws IOException if file not found
+     */
+    public HoppersBitboard(String filename) throws IOException {
+        this(new HoppersConfig(filename));
+    }
+
+    /**
+     * converts a grid based config
+     * @param config the config to convert
+     */
+    public HoppersBitboard(HoppersConfig config) {
+        this.layout = (HoppersPacking) config.getPackedPuzzle();
+        this.state = new long[layout.stateWidth()];
+        config.pack(state, 0);
+    }
+
+    /**
+     * wraps a state that is already packed
+     * @param layout the board
+     * @param state the green words then the red words, not copied
+     */
+    HoppersBitboard(HoppersPacking layout, long[] state) {
+        this.layout = layout;
+        this.state = state;
+    }
+
+    /**
+     * whether the config is the solution
+     * @return true if there are no green frogs left
+     */
+    @Override
+    public boolean isSolution() {
+        return layout.isSolution(state, 0);
+    }
+
+    /**
+     * get the neighbors for the current configuration
+     * @return a collection of neighbors, in the same order as HoppersConfig.getNeighbors
+     */
+    @Override
+    public Collection<Configuration> getNeighbors() {
+        PackedBuffer children = new PackedBuffer(state.length, 8);
+        layout.neighbors(state, 0, children);
+        ArrayList<Configuration> neighbors = new ArrayList<>(children.size());
+        for (int i = 0; i < children.size(); i++) {
+            neighbors.add(new HoppersBitboard(layout,
+                    Arrays.copyOfRange(children.array(), children.offset(i), children.offset(i) + state.length)));
+        }
+        return neighbors;
+    }
+
+    @Override
+    public PackedPuzzle getPackedPuzzle() {
+        return layout;
+    }
+
+    @Override
+    public void pack(long[] dest, int offset) {
+        System.arraycopy(state, 0, dest, offset, state.length);
+    }
+
+    /**
+     * @return the layout this config is on
+     */
+    public HoppersPacking getLayout() {
+        return layout;
+    }
+
+    /**
+     * converts back to a grid based config
+     * @return a HoppersConfig with the same frogs
+     */
+    public HoppersConfig toConfig() {
+        String[][] grid = layout.decode(state, 0);
+        int greenFrogs = 0;
+        for (int i = 0; i < layout.getWords(); i++) {
+            greenFrogs += Long.bitCount(state[i]);
+        }
+        return new HoppersConfig(grid, greenFrogs, layout);
+    }
+
+    /**
+     * @return hash of the masks
+     */
+    @Override
+    public int hashCode() {
+        return PackedStateTable.hash(state, 0, state.length);
+    }
+
+    /**
+     * two bitboards are equal if they have the same masks
+     * @param other the other object
+     * @return true if two objects are equal
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof HoppersBitboard) {
+            return Arrays.equals(state, ((HoppersBitboard) other).state);
+        }
+        return false;
+    }
+
+    /**
+     * @return the grid, in the same format as HoppersConfig.toString
+     */
+    @Override
+    public String toString() {
+        String[][] grid = layout.decode(state, 0);
+        StringBuilder gridstring = new StringBuilder();
+        for (int row = 0; row < layout.getRows(); row++) {
+            gridstring.append(String.join(" ", grid[row]));
+            gridstring.append("\n");
+        }
+        return gridstring.toString();
+    }
+}
@@ -1,6 +1,10 @@
 package puzzles.hoppers.model;
 
+import puzzles.common.Coordinates;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.PackedConfiguration;
+import puzzles.common.solver.PackedPuzzle;
+import puzzles.common.solver.Zobrist;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -17,11 +21,7 @@ import java.util.Collection;
  */
 
 
-public class HoppersConfig implements Configuration{
-    /** rows of grid **/
-    public static int rows;
-    /** columns of grid **/
-    public static int columns;
+public class HoppersConfig implements PackedConfiguration {
     /** grid of grid **/
     public String [][] grid;
     /** the cursor for row **/
@@ -30,6 +30,10 @@ public class HoppersConfig implements Configuration{
     public int columncursor;
     /** number of greenfrogs left **/
     private int greenFrogs;
+    /** water layout and jump table of this board, shared by every config made from it **/
+    private HoppersPacking layout;
+    /** Zobrist key of the grid, kept up to date by every jump **/
+    private long key;
 
     /**
      * constructor for hoppers config that reads in the file and creates the grid
@@ -40,8 +44,8 @@ public class HoppersConfig implements Configuration{
         try(BufferedReader in = new BufferedReader(new FileReader(filename))) {
             String line = in.readLine();
             String[] fields = line.split("\\s+");
-            rows = Integer.parseInt(fields[0]);
-            columns = Integer.parseInt(fields[1]);
+            int rows = Integer.parseInt(fields[0]);
+            int columns = Integer.parseInt(fields[1]);
             //creating the grid
             grid = new String[rows][columns];
             greenFrogs = 0;
@@ -58,6 +62,8 @@ public class HoppersConfig implements Configuration{
             }
             rowcursor = 0;
             columncursor = 0;
+            layout = new HoppersPacking(grid);
+            key = layout.zobristKey(grid);
         }catch (IOException ioe) {
             System.err.println("File not found");
 
@@ -76,6 +82,9 @@ public class HoppersConfig implements Configuration{
         this.rowcursor = other.rowcursor;
         this.columncursor = other.columncursor;
         this.greenFrogs = other.greenFrogs;
+        this.layout = other.layout;
+        int rows = layout.getRows();
+        int columns = layout.getColumns();
         this.grid = new String[rows][columns];
         for (int currentRow = 0 ; currentRow < rows ; currentRow++){
             System.arraycopy(other.grid[currentRow],0,this.grid[currentRow],0,columns);
@@ -89,6 +98,27 @@ public class HoppersConfig implements Configuration{
         this.grid[rowcursor][columncursor] = ".";
         this.grid[passrow][passcol] = ".";
         this.greenFrogs = greenFrogs - 1;
+        // the frog leaves its cell and lands on another, and the green frog it passed over is gone
+        boolean red = other.grid[rowcursor][columncursor].equals("R");
+        this.key = other.key
+                ^ layout.zobrist(layout.cellAt(rowcursor, columncursor), red)
+                ^ layout.zobrist(layout.cellAt(destrow, destcol), red)
+                ^ layout.zobrist(layout.cellAt(passrow, passcol), false);
+    }
+
+    /**
+     * constructor for a config made from a grid that was already built
+     * @param grid the grid
+     * @param greenFrogs number of green frogs on the grid
+     * @param layout the layout of the board
+     */
+    HoppersConfig(String[][] grid, int greenFrogs, HoppersPacking layout) {
+        this.grid = grid;
+        this.greenFrogs = greenFrogs;
+        this.layout = layout;
+        this.rowcursor = 0;
+        this.columncursor = 0;
+        this.key = layout.zobristKey(grid);
     }
 
     /**
@@ -107,6 +137,8 @@ public class HoppersConfig implements Configuration{
     @Override
     public Collection<Configuration> getNeighbors() {
         ArrayList<Configuration> neighbors = new ArrayList<>();
+        int rows = layout.getRows();
+        int columns = layout.getColumns();
         for(int CurrentRow = 0 ; CurrentRow < rows ; CurrentRow++){
             for(int CurrentColumn = 0 ; CurrentColumn < columns ; CurrentColumn++){
                 if(grid[CurrentRow][CurrentColumn].matches("[a-zA-Z]+")){
@@ -209,6 +241,36 @@ public class HoppersConfig implements Configuration{
         return neighbors;
     }
 
+    /**
+     * checks one jump without making any neighbors, only the three cells it touches are looked at.
+     * the same jumps getNeighbors makes are legal
+     * @param from the cell of the frog that jumps
+     * @param to the cell it lands on
+     * @return true if the frog on from can jump to to
+     */
+    public boolean isLegal(Coordinates from, Coordinates to){
+        int rows = layout.getRows();
+        int columns = layout.getColumns();
+        if(from.row() < 0 || from.row() >= rows || from.col() < 0 || from.col() >= columns
+                || to.row() < 0 || to.row() >= rows || to.col() < 0 || to.col() >= columns){
+            return false;
+        }
+        if(!(grid[from.row()][from.col()].equals("G") || grid[from.row()][from.col()].equals("R"))){
+            return false;
+        }
+        int rowChange = to.row() - from.row();
+        int colChange = to.col() - from.col();
+        // straight jumps only start on even rows and columns, diagonal ones from anywhere
+        boolean straight = (from.row() % 2 == 0) && (from.col() % 2 == 0)
+                && ((rowChange == 0 && Math.abs(colChange) == 4) || (colChange == 0 && Math.abs(rowChange) == 4));
+        boolean diagonal = Math.abs(rowChange) == 2 && Math.abs(colChange) == 2;
+        if(!straight && !diagonal){
+            return false;
+        }
+        return checkLanding(grid[to.row()][to.col()])
+                && checkPass(grid[from.row() + rowChange / 2][from.col() + colChange / 2]);
+    }
+
     /**
      * checks whether the position that was pass through contains a Green frog
      * @param Pass what the position that was pass through contains
@@ -228,17 +290,65 @@ public class HoppersConfig implements Configuration{
         return destination.equals(".");
     }
 
+    /**
+     * get the number of rows, from the layout this config shares with every config of the same file
+     * @return rows of the grid
+     */
+    public int getRows() {
+        return layout.getRows();
+    }
+
+    /**
+     * get the number of columns, from the layout this config shares with every config of the same file
+     * @return columns of the grid
+     */
+    public int getColumns() {
+        return layout.getColumns();
+    }
+
+    /**
+     * get the layout of this board, which is also its packed rules
+     * @return the layout
+     */
+    @Override
+    public PackedPuzzle getPackedPuzzle() {
+        if (layout == null) {
+            layout = new HoppersPacking(grid);
+        }
+        return layout;
+    }
+
+    /**
+     * packs the grid as a green frog mask and a red frog mask
+     * @param dest the array to write to
+     * @param offset where the state starts in dest
+     */
+    @Override
+    public void pack(long[] dest, int offset) {
+        ((HoppersPacking) getPackedPuzzle()).encode(grid, dest, offset);
+    }
+
+    /**
+     * get the Zobrist key of the configuration's grid
+     * @return the 64 bit key
+     */
+    public long getKey() {
+        return key;
+    }
+
     /**
      * get the hashcode for the configuration's grid
-     * @return the configuration's grid hashcode.
+     * @return the configuration's Zobrist key folded to an int
      */
     @Override
     public int hashCode(){
-        return Arrays.deepHashCode(this.grid);
+        return Zobrist.fold(key);
     }
 
     public String toString() {
         StringBuilder gridstring = new StringBuilder();
+        int rows = layout.getRows();
+        int columns = layout.getColumns();
         for (int row = 0; row < rows; row++) {
             for (int col = 0; col < columns; col++) {
                 gridstring.append(grid[row][col]);
@@ -252,7 +362,8 @@ public class HoppersConfig implements Configuration{
     }
 
     /**
-     *  override equals to compare two objects.
+     *  override equals to compare two objects. different keys mean different grids, the grids are
+     *  only compared when the keys match
      * @param other the other object
      * @return true if two objects are equal
      */
@@ -261,7 +372,13 @@ public class HoppersConfig implements Configuration{
         boolean result = false;
         if (other instanceof HoppersConfig) {
             HoppersConfig OtherHopper = (HoppersConfig) other;
-            return Arrays.deepEquals(this.grid,OtherHopper.grid);
+            if (this.key != OtherHopper.key) {
+                return false;
+            }
+            result = Arrays.deepEquals(this.grid,OtherHopper.grid);
+            if (!result) {
+                Zobrist.recordCollision();
+            }
         }
         return result;
     }
@@ -270,6 +387,8 @@ public class HoppersConfig implements Configuration{
      * this prints the grid out but also showing rows and columns for the PTUI
      */
     public void PTUIGRID() {
+        int rows = layout.getRows();
+        int columns = layout.getColumns();
         System.out.print("   ");
         // prints the number of cols horizontally
         for (int col = 0; col < columns; col++) {
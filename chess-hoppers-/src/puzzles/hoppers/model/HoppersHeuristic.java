@@ -0,0 +1,71 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Heuristic;
+
+/**
+ * Heuristics for HeuristicSolver on Hoppers boards.
+ */
+public class HoppersHeuristic {
+
+    /**
+     * every jump removes exactly one green frog, so the green frogs left are exactly the jumps left on
+     * any path to a solution. admissible, but every config at the same depth gets the same f
+     * @return the number of green frogs
+     */
+    public static Heuristic<HoppersConfig> greenFrogs() {
+        return config -> count(config, "G");
+    }
+
+    /**
+     * green frogs left first, then how spread out all the frogs are. a frog far from the others has
+     * nothing to jump over, so tight groups are tried first. for GREEDY mode, it can overestimate
+     * @return the green frogs, weighted, plus the frogs' distance from their middle
+     */
+    public static Heuristic<HoppersConfig> clustering() {
+        return config -> {
+            String[][] grid = config.grid;
+            int rows = grid.length;
+            int columns = rows == 0 ? 0 : grid[0].length;
+            int frogs = 0;
+            int rowSum = 0;
+            int colSum = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < columns; col++) {
+                    if (grid[row][col].equals("G") || grid[row][col].equals("R")) {
+                        frogs++;
+                        rowSum += row;
+                        colSum += col;
+                    }
+                }
+            }
+            int spread = 0;
+            for (int row = 0; row < rows && frogs > 0; row++) {
+                for (int col = 0; col < columns; col++) {
+                    if (grid[row][col].equals("G") || grid[row][col].equals("R")) {
+                        spread += Math.max(Math.abs(row * frogs - rowSum), Math.abs(col * frogs - colSum)) / frogs;
+                    }
+                }
+            }
+            // the spread can't reach this, so fewer green frogs always wins
+            int weight = rows * columns * Math.max(rows, columns) + 1;
+            return count(config, "G") * weight + spread;
+        };
+    }
+
+    /**
+     * @param config a board
+     * @param frog "G" or "R"
+     * @return how many of that frog are on the board
+     */
+    private static int count(HoppersConfig config, String frog) {
+        int frogs = 0;
+        for (String[] row : config.grid) {
+            for (String square : row) {
+                if (square.equals(frog)) {
+                    frogs++;
+                }
+            }
+        }
+        return frogs;
+    }
+}
@@ -1,9 +1,17 @@
 package puzzles.hoppers.model;
 import puzzles.chess.model.ChessConfig;
 import puzzles.chess.model.ChessModel;
+import puzzles.common.Coordinates;
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.DistanceMap;
+import puzzles.common.solver.HintCache;
+import puzzles.common.solver.PackedConfiguration;
+import puzzles.common.solver.SolutionStore;
+import puzzles.common.solver.SolveBudget;
+import puzzles.common.solver.SolveGuard;
+import puzzles.common.solver.SolveHandle;
+import puzzles.common.solver.SolveOutcome;
 import puzzles.hoppers.gui.HoppersGUI;
 
 import java.io.BufferedReader;
@@ -25,21 +33,27 @@ public class HoppersModel {
     /** the current configuration */
     private static HoppersConfig currentConfig;
     /** enum for game state **/
-    public enum GameState{SELECTED, JUMPED, LOADED, NEXT, RESET, CANTJUMP, INVALID, SOLVED, NOSOLUTION,LOADFAIL,}
+    public enum GameState{SELECTED, JUMPED, LOADED, NEXT, RESET, CANTJUMP, INVALID, SOLVED, NOSOLUTION,LOADFAIL,
+        BUDGETEXCEEDED}
 
     /** hashmap that maps gamestate to their message **/
-    public static final EnumMap<HoppersModel.GameState, String> GameStateMap = new EnumMap<>(Map.of(
-            HoppersModel.GameState.SELECTED, "Selected: ",
-            HoppersModel.GameState.JUMPED,  "Jumped from: ",
-            HoppersModel.GameState.LOADED, "Loaded: ",
-            HoppersModel.GameState.NEXT, "Next Step!",
-            HoppersModel.GameState.RESET, "Puzzle Reset!",
-            HoppersModel.GameState.CANTJUMP, "Can't jump from ",
-            HoppersModel.GameState.INVALID, "Invalid Selection: ",
-            HoppersModel.GameState.SOLVED, "Already Solved!",
-            HoppersModel.GameState.NOSOLUTION, "No Solution!",
-            HoppersModel.GameState.LOADFAIL, "Load Failed!"
+    public static final EnumMap<HoppersModel.GameState, String> GameStateMap = new EnumMap<>(Map.ofEntries(
+            Map.entry(HoppersModel.GameState.SELECTED, "Selected: "),
+            Map.entry(HoppersModel.GameState.JUMPED, "Jumped from: "),
+            Map.entry(HoppersModel.GameState.LOADED, "Loaded: "),
+            Map.entry(HoppersModel.GameState.NEXT, "Next Step!"),
+            Map.entry(HoppersModel.GameState.RESET, "Puzzle Reset!"),
+            Map.entry(HoppersModel.GameState.CANTJUMP, "Can't jump from "),
+            Map.entry(HoppersModel.GameState.INVALID, "Invalid Selection: "),
+            Map.entry(HoppersModel.GameState.SOLVED, "Already Solved!"),
+            Map.entry(HoppersModel.GameState.NOSOLUTION, "No Solution!"),
+            Map.entry(HoppersModel.GameState.LOADFAIL, "Load Failed!"),
+            Map.entry(HoppersModel.GameState.BUDGETEXCEEDED, "Hint Gave Up, Board Too Big!")
     ));
+    /** how long and how big a hint's search may get before it gives up **/
+    public static final SolveBudget HINT_BUDGET = new SolveBudget(10_000, 5_000_000);
+    /** how big a puzzle may be to have every reachable board solved up front when it loads **/
+    public static final SolveBudget ANALYSIS_BUDGET = new SolveBudget(2_000, 1_000_000);
     /** file loaded **/
     private static String file;
     /** the current gamestate **/
@@ -50,6 +64,8 @@ public class HoppersModel {
     private int columncursor;
     /** whether the coordinate is jumpable **/
     public boolean canjump;
+    /** what earlier hints of the loaded puzzle found **/
+    private volatile HintCache hintCache;
 
 
     /**
@@ -113,23 +129,9 @@ public class HoppersModel {
      * @return the new hoppersConfig after it is moved one step forward.
      */
     public HoppersConfig hint(){
-        /** the solver **/
-        Solver solver = new Solver(currentConfig);
         if(!(currentConfig.isSolution())){
-            List<Configuration> path = solver.solve(currentConfig);
-            if(path.size()!= 0){
-                currentConfig = (HoppersConfig) path.get(1);
-                gameState = GameState.NEXT;
-                currentConfig.PTUIGRID();
-                alertObservers(GameStateMap.get(GameState.NEXT));
-                return currentConfig;
-            }
-            else{
-                gameState = GameState.NOSOLUTION;
-                alertObservers(GameStateMap.get(GameState.NOSOLUTION));
-                return currentConfig;
-            }
-
+            return applyHint(currentConfig, SolveHandle.submit(currentConfig, HINT_BUDGET, null, Runnable::run,
+                    this::solveHint).getFuture().join());
         }
         else{
             gameState = GameState.SOLVED;
@@ -138,6 +140,65 @@ public class HoppersModel {
         }
     }
 
+    /**
+     * finds the path from a board to a solution, reusing what earlier hints of the same puzzle found.
+     * the first hint of a puzzle, or its prefetch, analyzes it up front if it is small enough.
+     * a hint from a board on a path found before, in this run or stored by an earlier one, is a lookup,
+     * fits SolveHandle.Search
+     * @param board the board to solve
+     * @param guard the started guard to check while searching
+     * @return what was found
+     */
+    public SolveHandle.Result solveHint(PackedConfiguration board, SolveGuard guard){
+        SolutionStore store = SolutionStore.openDefault();
+        SolveHandle.Result known = store == null ? null : store.get(board);
+        if(known != null){
+            return known;
+        }
+        HintCache cache;
+        synchronized (this){
+            if(hintCache == null || hintCache.getPuzzle() != board.getPackedPuzzle()){
+                hintCache = new HintCache(board.getPackedPuzzle());
+                hintCache.analyze(board, ANALYSIS_BUDGET);
+            }
+            cache = hintCache;
+        }
+        SolveHandle.Result result = cache.solve(board, guard);
+        if(store != null){
+            store.put(board, result, false);
+        }
+        return result;
+    }
+
+    /**
+     * moves one step along a hint that was solved for a board that isn't solved yet, used when the hint
+     * was solved in the background. does nothing if the puzzle has left that board since
+     * @param board the board the hint was solved for
+     * @param result what solving it found
+     * @return the new hoppersConfig after it is moved one step forward.
+     */
+    public HoppersConfig applyHint(HoppersConfig board, SolveHandle.Result result){
+        if(!(currentConfig.equals(board)) || result.getOutcome() == SolveOutcome.CANCELLED){
+            return currentConfig;
+        }
+        List<Configuration> path = result.getPath();
+        if(path.size()!= 0){
+            currentConfig = ((HoppersBitboard) path.get(1)).toConfig();
+            gameState = GameState.NEXT;
+            currentConfig.PTUIGRID();
+            alertObservers(GameStateMap.get(GameState.NEXT));
+        }
+        else if(result.getOutcome() == SolveOutcome.BUDGET_EXCEEDED){
+            gameState = GameState.BUDGETEXCEEDED;
+            alertObservers(GameStateMap.get(GameState.BUDGETEXCEEDED));
+        }
+        else{
+            gameState = GameState.NOSOLUTION;
+            alertObservers(GameStateMap.get(GameState.NOSOLUTION));
+        }
+        return currentConfig;
+    }
+
     /**
      * loads a new file.
      * @param filename the new file to load
@@ -181,26 +242,18 @@ public class HoppersModel {
             currentConfig.PTUIGRID();
             return currentConfig;
         }
-        else{
-            Collection<Configuration> validMoves = currentConfig.getNeighbors();
-            currentConfig.rowcursor = startRow;
-            currentConfig.columncursor = startCol;
+        else if(currentConfig.isLegal(new Coordinates(startRow, startCol), new Coordinates(destRow, destCol))){
             int middleRow = (startRow + destRow)/2;
             int middleCol= (startCol + destCol)/2;
-            HoppersConfig tempconfig = new HoppersConfig(currentConfig,destRow,destCol,middleRow,middleCol);
-            for (Configuration validconfig : validMoves) {
-                HoppersConfig validHopper = (HoppersConfig) validconfig;
-
-                if(tempconfig.equals(validHopper)){
-                    currentConfig = tempconfig;
-                    gameState = GameState.NEXT;
-                    canjump = true;
-                    System.out.println("Jumped from ("+ startRow + "," + startCol + ") to ("+ destRow + "," + destCol + ")");
-                    alertObservers(GameStateMap.get(GameState.NEXT));
-                    currentConfig.PTUIGRID();
-                    return currentConfig;
-                }
-            }
+            currentConfig = new HoppersConfig(currentConfig,destRow,destCol,middleRow,middleCol);
+            gameState = GameState.NEXT;
+            canjump = true;
+            System.out.println("Jumped from ("+ startRow + "," + startCol + ") to ("+ destRow + "," + destCol + ")");
+            alertObservers(GameStateMap.get(GameState.NEXT));
+            currentConfig.PTUIGRID();
+            return currentConfig;
+        }
+        else{
             gameState = GameState.CANTJUMP;
             canjump = false;
             alertObservers(GameStateMap.get(GameState.CANTJUMP) + "("+ startRow + "," + startCol + ") to ("+ destRow + "," + destCol + ")");
@@ -216,7 +269,7 @@ public class HoppersModel {
      * @return true if the coordinate of destination exists. false otherwise.
      */
     private boolean coordexists(int row, int col){
-        return row >= 0 && row < HoppersConfig.rows && col>= 0 && col < HoppersConfig.columns;
+        return row >= 0 && row < currentConfig.getRows() && col>= 0 && col < currentConfig.getColumns();
 
     }
 
@@ -238,6 +291,17 @@ public class HoppersModel {
         currentConfig.PTUIGRID();
     }
 
+    /**
+     * checks the current board against the puzzle's analysis, only known once a hint or a prefetch has
+     * analyzed the puzzle
+     * @return true if no solution can be reached from the current board any more
+     */
+    public boolean isDeadEnd(){
+        HintCache cache = hintCache;
+        return cache != null && cache.getPuzzle() == currentConfig.getPackedPuzzle()
+                && cache.distance(currentConfig) == DistanceMap.DEAD;
+    }
+
     /**
      * gets the current config
      * @return the current config
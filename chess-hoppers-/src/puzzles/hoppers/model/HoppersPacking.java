@@ -0,0 +1,373 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.GridSymmetry;
+import puzzles.common.solver.LayeredPuzzle;
+import puzzles.common.solver.PackedBuffer;
+import puzzles.common.solver.SymmetricPuzzle;
+import puzzles.common.solver.Zobrist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The fixed part of a Hoppers board: its size, which squares are water, and every jump that is
+ * possible on it. Built once when a file is read and shared by every board made from that file.
+ * The squares that aren't water are numbered in row major order and a board is stored as bitmasks
+ * over those numbers: the green frog words first, then the red frog words. Lily pads are the squares
+ * that are in neither mask. This is also the packed form used by PackedSolver.
+ * The rotations and reflections that map the water and the jump table onto themselves are found here too,
+ * they are the symmetries a CanonicalPuzzle can reduce away.
+ */
+public class HoppersPacking implements LayeredPuzzle, SymmetricPuzzle {
+    /** rows of the board **/
+    private final int rows;
+    /** columns of the board **/
+    private final int columns;
+    /** cell number of every square, -1 for water **/
+    private final int[][] cellIndex;
+    /** row of every cell **/
+    private final int[] cellRow;
+    /** column of every cell **/
+    private final int[] cellCol;
+    /** longs in one mask **/
+    private final int words;
+    /** the jumps from cell c are jumpFrom/jumpOver/jumpTo[firstJump[c] .. firstJump[c + 1]) **/
+    private final int[] firstJump;
+    /** the cell every jump starts on **/
+    private final int[] jumpFrom;
+    /** the cell every jump passes over **/
+    private final int[] jumpOver;
+    /** the cell every jump lands on **/
+    private final int[] jumpTo;
+    /** Zobrist key of a green frog on every cell, then of a red frog on every cell **/
+    private final long[] zobrist;
+    /** where every cell goes under each symmetry of the board, the identity first **/
+    private final int[][] symmetries;
+
+    /**
+     * numbers the squares of a board and works out its jump table
+     * @param grid the board, "*" is water
+     */
+    public HoppersPacking(String[][] grid) {
+        this.rows = grid.length;
+        this.columns = rows == 0 ? 0 : grid[0].length;
+        this.cellIndex = new int[rows][columns];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                cellIndex[row][col] = grid[row][col].equals("*") ? -1 : count++;
+            }
+        }
+        this.cellRow = new int[count];
+        this.cellCol = new int[count];
+        this.words = Math.max(1, (count + 63) / 64);
+
+        // at most 8 jumps from every cell
+        int[] from = new int[count * 8];
+        int[] over = new int[count * 8];
+        int[] to = new int[count * 8];
+        this.firstJump = new int[count + 1];
+        int jumps = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                int cell = cellIndex[row][col];
+                if (cell < 0) {
+                    continue;
+                }
+                cellRow[cell] = row;
+                cellCol[cell] = col;
+                firstJump[cell] = jumps;
+                // same directions, in the same order, as HoppersConfig.getNeighbors
+                int[][] directions = (row % 2 == 0 && col % 2 == 0)
+                        ? new int[][]{{0, 2}, {0, -2}, {-2, 0}, {2, 0}, {-1, 1}, {-1, -1}, {1, 1}, {1, -1}}
+                        : new int[][]{{-1, 1}, {-1, -1}, {1, 1}, {1, -1}};
+                for (int[] direction : directions) {
+                    int passCell = cellAt(row + direction[0], col + direction[1]);
+                    int destCell = cellAt(row + 2 * direction[0], col + 2 * direction[1]);
+                    if (passCell >= 0 && destCell >= 0) {
+                        from[jumps] = cell;
+                        over[jumps] = passCell;
+                        to[jumps] = destCell;
+                        jumps++;
+                    }
+                }
+            }
+        }
+        firstJump[count] = jumps;
+        this.jumpFrom = Arrays.copyOf(from, jumps);
+        this.jumpOver = Arrays.copyOf(over, jumps);
+        this.jumpTo = Arrays.copyOf(to, jumps);
+        this.zobrist = Zobrist.table(2 * count, (long) rows << 32 | columns);
+        this.symmetries = findSymmetries();
+    }
+
+    /**
+     * tries every rotation and reflection of the grid, keeping the ones that send every cell to a cell
+     * and every jump to a jump
+     * @return the cell map of each symmetry found, the identity first
+     */
+    private int[][] findSymmetries() {
+        Set<List<Integer>> jumps = new HashSet<>();
+        for (int jump = 0; jump < jumpFrom.length; jump++) {
+            jumps.add(List.of(jumpFrom[jump], jumpOver[jump], jumpTo[jump]));
+        }
+        List<int[]> found = new ArrayList<>();
+        for (int symmetry = 0; symmetry < GridSymmetry.COUNT; symmetry++) {
+            int[] squares = GridSymmetry.squareMap(symmetry, rows, columns);
+            if (squares == null) {
+                continue;
+            }
+            int[] cells = new int[cellRow.length];
+            boolean fits = true;
+            for (int cell = 0; cell < cells.length && fits; cell++) {
+                int image = squares[cellRow[cell] * columns + cellCol[cell]];
+                cells[cell] = cellIndex[image / columns][image % columns];
+                fits = cells[cell] >= 0;
+            }
+            for (int jump = 0; jump < jumpFrom.length && fits; jump++) {
+                fits = jumps.contains(List.of(cells[jumpFrom[jump]], cells[jumpOver[jump]], cells[jumpTo[jump]]));
+            }
+            if (fits) {
+                found.add(cells);
+            }
+        }
+        return found.toArray(new int[0][]);
+    }
+
+    /**
+     * @param row a row
+     * @param col a column
+     * @return the cell number of that square, or -1 if it is water or off the board
+     */
+    public int cellAt(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= columns) {
+            return -1;
+        }
+        return cellIndex[row][col];
+    }
+
+    /**
+     * @param cell a cell number
+     * @return the row of that cell
+     */
+    public int rowOf(int cell) {
+        return cellRow[cell];
+    }
+
+    /**
+     * @param cell a cell number
+     * @return the column of that cell
+     */
+    public int colOf(int cell) {
+        return cellCol[cell];
+    }
+
+    /**
+     * @return rows of the board
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return columns of the board
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return number of squares that aren't water
+     */
+    public int getCellCount() {
+        return cellRow.length;
+    }
+
+    /**
+     * @return longs in one mask, a state is two masks
+     */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     * packs a board with this layout
+     * @param grid the board
+     * @param dest the array to write to
+     * @param offset where the state starts in dest
+     */
+    public void encode(String[][] grid, long[] dest, int offset) {
+        for (int i = 0; i < 2 * words; i++) {
+            dest[offset + i] = 0L;
+        }
+        for (int cell = 0; cell < cellRow.length; cell++) {
+            String square = grid[cellRow[cell]][cellCol[cell]];
+            if (square.equals("G")) {
+                dest[offset + (cell >>> 6)] |= 1L << cell;
+            } else if (square.equals("R")) {
+                dest[offset + words + (cell >>> 6)] |= 1L << cell;
+            }
+        }
+    }
+
+    /**
+     * @param cell a cell number
+     * @param red true for a red frog, false for a green one
+     * @return the Zobrist key of that frog on that cell
+     */
+    long zobrist(int cell, boolean red) {
+        return zobrist[red ? cellRow.length + cell : cell];
+    }
+
+    /**
+     * works out the Zobrist key of a whole board, configs then keep it up to date move by move
+     * @param grid the board
+     * @return the XOR of the keys of every frog on it
+     */
+    public long zobristKey(String[][] grid) {
+        long key = 0L;
+        for (int cell = 0; cell < cellRow.length; cell++) {
+            String square = grid[cellRow[cell]][cellCol[cell]];
+            if (square.equals("G")) {
+                key ^= zobrist(cell, false);
+            } else if (square.equals("R")) {
+                key ^= zobrist(cell, true);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * turns a state back into a grid of strings
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @return the grid, "G", "R", "." and "*" like the files
+     */
+    public String[][] decode(long[] states, int offset) {
+        String[][] grid = new String[rows][columns];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                int cell = cellIndex[row][col];
+                if (cell < 0) {
+                    grid[row][col] = "*";
+                } else if ((states[offset + (cell >>> 6)] & (1L << cell)) != 0) {
+                    grid[row][col] = "G";
+                } else if ((states[offset + words + (cell >>> 6)] & (1L << cell)) != 0) {
+                    grid[row][col] = "R";
+                } else {
+                    grid[row][col] = ".";
+                }
+            }
+        }
+        return grid;
+    }
+
+    @Override
+    public int stateWidth() {
+        return 2 * words;
+    }
+
+    @Override
+    public int symmetryCount() {
+        return symmetries.length;
+    }
+
+    /**
+     * moves every frog to where the symmetry sends its cell, keeping its color
+     */
+    @Override
+    public void transform(int symmetry, long[] src, int srcOffset, long[] dest, int destOffset) {
+        GridSymmetry.permute(symmetries[symmetry], 2, words, src, srcOffset, dest, destOffset);
+    }
+
+    /**
+     * solved once the green mask is empty
+     */
+    @Override
+    public boolean isSolution(long[] states, int offset) {
+        for (int i = 0; i < words; i++) {
+            if (states[offset + i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * walks the frogs in cell order and tries each of their jumps from the table. a jump is valid
+     * when the cell it passes over is in the green mask and the cell it lands on is in neither mask
+     */
+    @Override
+    public void neighbors(long[] states, int offset, PackedBuffer out) {
+        for (int word = 0; word < words; word++) {
+            long frogs = states[offset + word] | states[offset + words + word];
+            while (frogs != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(frogs);
+                frogs &= frogs - 1;
+                // the word the frog is stored in, green or red
+                int frogWord = (states[offset + word] & (1L << cell)) != 0 ? word : words + word;
+                for (int jump = firstJump[cell]; jump < firstJump[cell + 1]; jump++) {
+                    int over = jumpOver[jump];
+                    int to = jumpTo[jump];
+                    long overBit = 1L << over;
+                    long toBit = 1L << to;
+                    if ((states[offset + (over >>> 6)] & overBit) == 0
+                            || ((states[offset + (to >>> 6)] | states[offset + words + (to >>> 6)]) & toBit) != 0) {
+                        continue;
+                    }
+                    int child = out.append(states, offset);
+                    long[] array = out.array();
+                    array[child + frogWord] &= ~(1L << cell);
+                    array[child + (over >>> 6)] &= ~overBit;
+                    array[child + (frogWord < words ? 0 : words) + (to >>> 6)] |= toBit;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the unpacked state as a HoppersBitboard
+     */
+    @Override
+    public Configuration unpack(long[] states, int offset) {
+        long[] state = new long[2 * words];
+        System.arraycopy(states, offset, state, 0, state.length);
+        return new HoppersBitboard(this, state);
+    }
+
+    /**
+     * @param jump a jump number
+     * @return the cell the jump starts on
+     */
+    int jumpFrom(int jump) {
+        return jumpFrom[jump];
+    }
+
+    /**
+     * @param jump a jump number
+     * @return the cell the jump passes over
+     */
+    int jumpOver(int jump) {
+        return jumpOver[jump];
+    }
+
+    /**
+     * @param jump a jump number
+     * @return the cell the jump lands on
+     */
+    int jumpTo(int jump) {
+        return jumpTo[jump];
+    }
+
+    /**
+     * @param cell a cell number
+     * @return the first jump that starts on that cell
+     */
+    int firstJump(int cell) {
+        return firstJump[cell];
+    }
+}
@@ -0,0 +1,115 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.MutableBoard;
+import puzzles.common.solver.PackedPuzzle;
+
+/**
+ * One Hoppers board whose green and red frog masks are changed in place. A move is a jump number from
+ * the HoppersPacking's jump table shifted left once, with the low bit set when the jumping frog is red.
+ * Making a jump flips three bits, the frog's start and landing cells in its color's mask and the jumped
+ * green frog's cell, so unmaking it is flipping the same three bits again.
+ */
+public class MutableHoppersBoard implements MutableBoard {
+    /** the board this position is on **/
+    private final HoppersPacking layout;
+    /** the green frog words followed by the red frog words **/
+    private final long[] state;
+    /** longs in one mask **/
+    private final int words;
+
+    /**
+     * starts from a grid based config
+     * @param config the config to start from
+     */
+    public MutableHoppersBoard(HoppersConfig config) {
+        this.layout = (HoppersPacking) config.getPackedPuzzle();
+        this.words = layout.getWords();
+        this.state = new long[layout.stateWidth()];
+        config.pack(state, 0);
+    }
+
+    /**
+     * at most every jump in the table
+     */
+    @Override
+    public int maxMoves() {
+        return Math.max(1, layout.firstJump(layout.getCellCount()));
+    }
+
+    /**
+     * every jump takes a green frog, so no more jumps than green frogs
+     */
+    @Override
+    public int maxDepth() {
+        int green = 0;
+        for (int word = 0; word < words; word++) {
+            green += Long.bitCount(state[word]);
+        }
+        return green;
+    }
+
+    /**
+     * same jumps, in the same order, as HoppersPacking.neighbors
+     */
+    @Override
+    public int generateMoves(int[] moves, int offset) {
+        int count = 0;
+        for (int word = 0; word < words; word++) {
+            long frogs = state[word] | state[words + word];
+            while (frogs != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(frogs);
+                frogs &= frogs - 1;
+                int red = (state[word] & (1L << cell)) != 0 ? 0 : 1;
+                for (int jump = layout.firstJump(cell); jump < layout.firstJump(cell + 1); jump++) {
+                    int over = layout.jumpOver(jump);
+                    int to = layout.jumpTo(jump);
+                    if ((state[over >>> 6] & (1L << over)) != 0
+                            && ((state[to >>> 6] | state[words + (to >>> 6)]) & (1L << to)) == 0) {
+                        moves[offset + count++] = jump << 1 | red;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void make(int move) {
+        flip(move);
+    }
+
+    @Override
+    public void unmake(int move) {
+        flip(move);
+    }
+
+    /**
+     * flips the three bits a jump changes
+     * @param move the jump
+     */
+    private void flip(int move) {
+        int jump = move >>> 1;
+        int plane = (move & 1) * words;
+        int from = layout.jumpFrom(jump);
+        int over = layout.jumpOver(jump);
+        int to = layout.jumpTo(jump);
+        state[plane + (from >>> 6)] ^= 1L << from;
+        state[plane + (to >>> 6)] ^= 1L << to;
+        state[over >>> 6] ^= 1L << over;
+    }
+
+    @Override
+    public boolean isSolution() {
+        return layout.isSolution(state, 0);
+    }
+
+    @Override
+    public long[] state() {
+        return state;
+    }
+
+    @Override
+    public PackedPuzzle getPackedPuzzle() {
+        return layout;
+    }
+}
@@ -1,7 +1,11 @@
 package puzzles.hoppers.solver;
 
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.CountingSolver;
+import puzzles.common.solver.LayeredSolver;
+import puzzles.common.solver.ParallelSolver;
+import puzzles.common.solver.SolutionStore;
+import puzzles.common.solver.SolveHandle;
 import puzzles.hoppers.model.HoppersConfig;
 
 import java.io.IOException;
@@ -9,17 +13,36 @@ import java.util.List;
 
 public class Hoppers {
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            System.out.println("Usage: java Hoppers filename");
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java Hoppers filename [threads]");
         }
         else{
             String filename = args[0];
             System.out.println("File: "+args[0]);
 
             HoppersConfig hoppersConfig = new HoppersConfig(filename);
-            Solver solver = new Solver(hoppersConfig);
-            List<Configuration> pathList= solver.solve(hoppersConfig);
-
+            // a board solved before, by any run, is printed from the store
+            SolutionStore store = SolutionStore.openDefault();
+            SolveHandle.Result known = store == null ? null : store.get(hoppersConfig, true);
+            if (known != null) {
+                System.out.print(hoppersConfig);
+                CountingSolver.printPathList(known.getPath(), known.getTotalConfigs(), known.getUniqueConfigs());
+                return;
+            }
+            CountingSolver solver;
+            List<Configuration> pathList;
+            if (args.length == 2) {
+                ParallelSolver parallelSolver = new ParallelSolver(hoppersConfig, Integer.parseInt(args[1]));
+                pathList = parallelSolver.solve(hoppersConfig);
+                solver = parallelSolver;
+            } else {
+                LayeredSolver layeredSolver = new LayeredSolver(hoppersConfig);
+                pathList = layeredSolver.solve(hoppersConfig);
+                solver = layeredSolver;
+            }
+            if (store != null) {
+                store.put(hoppersConfig, pathList, solver.getTotalConfigs(), solver.getUniqueConfigs(), true);
+            }
 
             System.out.print(hoppersConfig);
             solver.printPathList(pathList);
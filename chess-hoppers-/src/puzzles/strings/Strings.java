@@ -1,6 +1,11 @@
 package puzzles.strings;
+import puzzles.common.solver.BidirectionalSolver;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.CountingSolver;
+import puzzles.common.solver.HeuristicSolver;
+import puzzles.common.solver.PackedSolver;
+import puzzles.common.solver.SolutionStore;
+import puzzles.common.solver.SolveHandle;
 import java.util.*;
 
 /**
@@ -10,20 +15,49 @@ public class Strings {
 
     /**
      * the main method for Strings puzzle.
-     * @param args command line arguments
+     * @param args command line arguments, the start, the finish and optionally astar to search with
+     *             StringsHeuristic or bidirectional to search from both ends, both print their own counts
      */
     public static void main(String[] args) {
-        if (args.length < 2) {
-            System.out.println(("Usage: java Strings start finish"));
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && !args[2].equalsIgnoreCase("astar")
+                && !args[2].equalsIgnoreCase("bidirectional"))) {
+            System.out.println(("Usage: java Strings start finish [astar|bidirectional]"));
         } else {
             String start = args[0];
             String end = args[1];
             System.out.println("Start: "+start+ ", End: "+end);
 
             StringsConfig startConfig = new StringsConfig(start, end);
-            Solver solver = new Solver(startConfig);
+            SolutionStore store = SolutionStore.openDefault();
+            if (args.length == 3 && args[2].equalsIgnoreCase("astar")) {
+                // a shortest path too, but only the strings that look closest to the finish get expanded
+                HeuristicSolver<StringsConfig> solver = new HeuristicSolver<>(startConfig, new StringsHeuristic(),
+                        HeuristicSolver.Mode.A_STAR);
+                solver.printPathList(solver.solve(startConfig));
+                return;
+            }
+            if (args.length == 3) {
+                // a shortest path with far fewer strings visited, but not the counts of the breadth first search
+                BidirectionalSolver solver = new BidirectionalSolver(startConfig);
+                List<Configuration> pathList = solver.solve(startConfig);
+                if (store != null) {
+                    store.put(startConfig, pathList, solver.getTotalConfigs(), solver.getUniqueConfigs(), false);
+                }
+                solver.printPathList(pathList);
+                return;
+            }
+            // a pair solved before, by any run, is printed from the store
+            SolveHandle.Result known = store == null ? null : store.get(startConfig, true);
+            if (known != null) {
+                CountingSolver.printPathList(known.getPath(), known.getTotalConfigs(), known.getUniqueConfigs());
+                return;
+            }
+            PackedSolver solver = new PackedSolver(startConfig);
 
             List<Configuration> pathList = solver.solve(startConfig);
+            if (store != null) {
+                store.put(startConfig, pathList, solver.getTotalConfigs(), solver.getUniqueConfigs(), true);
+            }
             solver.printPathList(pathList);
         }
     }
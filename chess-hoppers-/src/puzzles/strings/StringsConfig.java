@@ -1,5 +1,7 @@
 package puzzles.strings;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.PackedConfiguration;
+import puzzles.common.solver.PackedPuzzle;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -8,10 +10,11 @@ import java.util.Set;
  * Turns the information from command line arguments into instances of StringsConfig configurations.
  * Has isSolution, getNeighbors, equals, toString, hashCode
  */
-public class StringsConfig implements Configuration {
+public class StringsConfig implements PackedConfiguration {
 
     private String currString;
-    private static String destinationString;
+    /** the packed rules and destination, shared by every config of one puzzle **/
+    private final StringsPacking packing;
 
     /**
      * initial constructor
@@ -20,7 +23,7 @@ public class StringsConfig implements Configuration {
      */
     public StringsConfig(String start, String dest){
         this.currString = start;
-        destinationString = dest;
+        this.packing = new StringsPacking(start, dest);
     }
 
     /**
@@ -29,14 +32,17 @@ public class StringsConfig implements Configuration {
      */
     public StringsConfig(StringsConfig other){
         this.currString = other.currString;
+        this.packing = other.packing;
     }
 
     /**
      * another copy constructor but this takes in a string
      * @param other the string to set currString to
+     * @param packing the puzzle the string belongs to
      */
-    public StringsConfig(String other){
+    StringsConfig(String other, StringsPacking packing){
         this.currString = other;
+        this.packing = packing;
     }
 
     /**
@@ -45,7 +51,7 @@ public class StringsConfig implements Configuration {
      */
     @Override
     public boolean isSolution() {
-        return currString.equals(destinationString);
+        return currString.equals(packing.getDestination());
     }
 
     /**
@@ -66,12 +72,12 @@ public class StringsConfig implements Configuration {
             if (currentIndexASCII-1 < 65){
                 // moving to left: 'Z'
                 sbf.setCharAt(i, 'Z');
-                StringsConfig moveLeft = new StringsConfig(sbf.toString());
+                StringsConfig moveLeft = new StringsConfig(sbf.toString(), packing);
                 neighbors.add(moveLeft);
 
                 // moving to right: B
                 sbf.setCharAt(i, 'B');
-                StringsConfig moveRight = new StringsConfig(sbf.toString());
+                StringsConfig moveRight = new StringsConfig(sbf.toString(), packing);
                 neighbors.add(moveRight);
             }
 
@@ -79,12 +85,12 @@ public class StringsConfig implements Configuration {
             else if(currentIndexASCII+1 > 90){
                 // moving to left: 'Y'
                 sbf.setCharAt(i, 'Y');
-                StringsConfig moveLeft = new StringsConfig(sbf.toString());
+                StringsConfig moveLeft = new StringsConfig(sbf.toString(), packing);
                 neighbors.add(moveLeft);
 
                 // moving to right: A
                 sbf.setCharAt(i, 'A');
-                StringsConfig moveRight = new StringsConfig(sbf.toString());
+                StringsConfig moveRight = new StringsConfig(sbf.toString(), packing);
                 neighbors.add(moveRight);
             }
 
@@ -92,13 +98,13 @@ public class StringsConfig implements Configuration {
                 // moving to the left
                 char leftChar = (char)(currentIndexASCII-1);
                 sbf.setCharAt(i, leftChar);
-                StringsConfig moveLeft = new StringsConfig(sbf.toString());
+                StringsConfig moveLeft = new StringsConfig(sbf.toString(), packing);
                 neighbors.add(moveLeft);
 
                 // moving to the right
                 char rightChar = (char)(currentIndexASCII+1);
                 sbf.setCharAt(i, rightChar);
-                StringsConfig moveRight = new StringsConfig(sbf.toString());
+                StringsConfig moveRight = new StringsConfig(sbf.toString(), packing);
                 neighbors.add(moveRight);
             }
         }
@@ -129,6 +135,31 @@ public class StringsConfig implements Configuration {
         return currString.hashCode();
     }
 
+    /**
+     * @return the packed rules for this puzzle, using the first config's string as the start
+     */
+    @Override
+    public PackedPuzzle getPackedPuzzle() {
+        return packing;
+    }
+
+    /**
+     * packs the current string, 5 bits per letter
+     * @param dest the array to write to
+     * @param offset where the state starts in dest
+     */
+    @Override
+    public void pack(long[] dest, int offset) {
+        packing.encode(currString, dest, offset);
+    }
+
+    /**
+     * @return the string every config is trying to become
+     */
+    public String getDestination() {
+        return packing.getDestination();
+    }
+
     /**
      * @return the current string
      */
@@ -0,0 +1,39 @@
+package puzzles.strings;
+
+import puzzles.common.solver.Heuristic;
+
+/**
+ * Estimates the moves left in the Strings puzzle as the sum, over every position, of how far the letter
+ * there is from the destination's letter going round the alphabet either way. A move changes one letter
+ * by one step, so this never overestimates and HeuristicSolver's A* mode finds a shortest path with it.
+ */
+public class StringsHeuristic implements Heuristic<StringsConfig> {
+
+    /**
+     * @param from a letter
+     * @param to the letter it has to become
+     * @return the fewest moves to turn from into to
+     */
+    static int distance(char from, char to) {
+        if (from == to) {
+            return 0;
+        }
+        if (from < 'A' || from > 'Z' || to < 'A' || to > 'Z') {
+            // not a letter, it takes at least one move to change
+            return 1;
+        }
+        int steps = Math.abs(from - to);
+        return Math.min(steps, 26 - steps);
+    }
+
+    @Override
+    public int estimate(StringsConfig config) {
+        String current = config.toString();
+        String destination = config.getDestination();
+        int moves = 0;
+        for (int i = 0; i < current.length(); i++) {
+            moves += distance(current.charAt(i), destination.charAt(i));
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,206 @@
+package puzzles.strings;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.PackedBuffer;
+import puzzles.common.solver.ReversiblePuzzle;
+
+/**
+ * Packed form of the Strings puzzle. Every letter takes 5 bits, 12 letters to a long.
+ * Codes 0-25 are the letters A-Z, code 26 means "the character the start string had here", which is
+ * how characters that aren't capital letters are kept until the first move replaces them.
+ * Every letter move can be undone by the opposite move, so the puzzle can also be searched backwards
+ * from the destination.
+ */
+public class StringsPacking implements ReversiblePuzzle {
+    /** bits per letter **/
+    private static final int BITS = 5;
+    /** letters per long **/
+    private static final int PER_LONG = 12;
+    /** code for the character the start string had at a position **/
+    private static final int ORIGINAL = 26;
+
+    /** the string the puzzle started from **/
+    private final String original;
+    /** the string the puzzle is trying to reach **/
+    private final String destinationString;
+    /** the packed destination, null if the destination can never be reached **/
+    private final long[] destination;
+    /** longs per state **/
+    private final int width;
+
+    /**
+     * creates the packed rules for one puzzle
+     * @param original the start string
+     * @param dest the destination string
+     */
+    public StringsPacking(String original, String dest) {
+        this.original = original;
+        this.destinationString = dest;
+        this.width = Math.max(1, (original.length() + PER_LONG - 1) / PER_LONG);
+        this.destination = encodeDestination(dest);
+    }
+
+    /**
+     * packs the destination, as long as every character in it can appear in a state
+     * @param dest the destination string
+     * @return the packed destination, or null if it can't be reached
+     */
+    private long[] encodeDestination(String dest) {
+        if (dest == null || dest.length() != original.length()) {
+            return null;
+        }
+        for (int i = 0; i < dest.length(); i++) {
+            if (codeOf(dest.charAt(i)) == ORIGINAL && dest.charAt(i) != original.charAt(i)) {
+                return null;
+            }
+        }
+        long[] packed = new long[width];
+        encode(dest, packed, 0);
+        return packed;
+    }
+
+    /**
+     * @param letter a character
+     * @return its 5 bit code
+     */
+    private static int codeOf(char letter) {
+        if (letter >= 'A' && letter <= 'Z') {
+            return letter - 'A';
+        }
+        return ORIGINAL;
+    }
+
+    /**
+     * @return the string the puzzle is trying to reach
+     */
+    public String getDestination() {
+        return destinationString;
+    }
+
+    /**
+     * packs a string of this puzzle
+     * @param string the string to pack, same length as the start string
+     * @param dest the array to write to
+     * @param offset where the state starts in dest
+     */
+    public void encode(String string, long[] dest, int offset) {
+        for (int i = 0; i < width; i++) {
+            dest[offset + i] = 0L;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            dest[offset + i / PER_LONG] |= (long) codeOf(string.charAt(i)) << ((i % PER_LONG) * BITS);
+        }
+    }
+
+    /**
+     * reads the character at a position of a packed state
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @param index the position in the string
+     * @return the character at that position
+     */
+    private char charAt(long[] states, int offset, int index) {
+        int code = (int) (states[offset + index / PER_LONG] >>> ((index % PER_LONG) * BITS)) & 0x1F;
+        if (code == ORIGINAL) {
+            return original.charAt(index);
+        }
+        return (char) ('A' + code);
+    }
+
+    /**
+     * copies a state onto the end of out with one letter changed
+     * @param states the array holding the state
+     * @param offset where the state starts in states
+     * @param index the position to change
+     * @param letter the new letter there
+     * @param out the buffer to append to
+     */
+    private void appendWith(long[] states, int offset, int index, char letter, PackedBuffer out) {
+        int dest = out.append(states, offset) + index / PER_LONG;
+        int shift = (index % PER_LONG) * BITS;
+        long[] array = out.array();
+        array[dest] = (array[dest] & ~(0x1FL << shift)) | ((long) codeOf(letter) << shift);
+    }
+
+    @Override
+    public int stateWidth() {
+        return width;
+    }
+
+    @Override
+    public boolean isSolution(long[] states, int offset) {
+        if (destination == null) {
+            return false;
+        }
+        for (int i = 0; i < width; i++) {
+            if (states[offset + i] != destination[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * same moves as StringsConfig.getNeighbors: every letter one step left then one step right,
+     * wrapping between A and Z
+     */
+    @Override
+    public void neighbors(long[] states, int offset, PackedBuffer out) {
+        for (int i = 0; i < original.length(); i++) {
+            int currentIndexASCII = charAt(states, offset, i);
+            if (currentIndexASCII - 1 < 65) {
+                appendWith(states, offset, i, 'Z', out);
+                appendWith(states, offset, i, 'B', out);
+            } else if (currentIndexASCII + 1 > 90) {
+                appendWith(states, offset, i, 'Y', out);
+                appendWith(states, offset, i, 'A', out);
+            } else {
+                appendWith(states, offset, i, (char) (currentIndexASCII - 1), out);
+                appendWith(states, offset, i, (char) (currentIndexASCII + 1), out);
+            }
+        }
+    }
+
+    /**
+     * a letter came from either letter next to it in the alphabet, wrapping between A and Z, or from
+     * the start string's character if that wasn't a letter and one move turns it into this letter.
+     * a position still holding the start string's character hasn't moved, nothing leads to it
+     */
+    @Override
+    public void predecessors(long[] states, int offset, PackedBuffer out) {
+        for (int i = 0; i < original.length(); i++) {
+            char letter = charAt(states, offset, i);
+            if (codeOf(letter) == ORIGINAL) {
+                continue;
+            }
+            appendWith(states, offset, i, letter == 'A' ? 'Z' : (char) (letter - 1), out);
+            appendWith(states, offset, i, letter == 'Z' ? 'A' : (char) (letter + 1), out);
+            char start = original.charAt(i);
+            if (codeOf(start) == ORIGINAL) {
+                boolean below = start < 'A' && (letter == 'Z' || letter == 'B');
+                boolean above = start > 'Z' && (letter == 'Y' || letter == 'A');
+                if (below || above) {
+                    appendWith(states, offset, i, start, out);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean packGoal(long[] dest, int offset) {
+        if (destination == null) {
+            return false;
+        }
+        System.arraycopy(destination, 0, dest, offset, width);
+        return true;
+    }
+
+    @Override
+    public Configuration unpack(long[] states, int offset) {
+        StringBuilder sb = new StringBuilder(original.length());
+        for (int i = 0; i < original.length(); i++) {
+            sb.append(charAt(states, offset, i));
+        }
+        return new StringsConfig(sb.toString(), this);
+    }
+}